@@ -0,0 +1,56 @@
+package pl.antpack.core;
+
+import org.openjdk.jmh.annotations.*;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.utils.BenchmarkGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single {@link Ant#buildSolution} call, the innermost hot path of the engine,
+ * with and without a {@link CandidateList} of the given percentage of the items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntConstructionBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"150", "20000", "100000", "1000000"})
+    int itemCount;
+
+    @Param({"10", "30", "60"})
+    int capacityFactor;
+
+    @Param({"0", "25", "50"})
+    int candidatePercent;
+
+    private Ant ant;
+    private double[] attractiveness;
+    private CandidateList candidates;
+    private int capacity;
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProblemInstance problem = BenchmarkGenerator.generateHardProblem(itemCount, capacityFactor);
+        ItemColumns items = problem.items();
+        capacity = problem.capacity();
+        ant = new Ant(items, ItemOrder.byWeightDescending(items));
+
+        PheromoneTrail pheromones = new PheromoneTrail(items.size(), 0.1);
+        attractiveness = new AttractivenessTable(items).update(pheromones, 1.0, 2.0);
+        int candidateCount = itemCount * candidatePercent / 100;
+        candidates = candidateCount > 0 ? CandidateList.select(items, attractiveness, candidateCount) : null;
+    }
+
+    @Benchmark
+    public Solution buildSolution() {
+        return ant.buildSolution(attractiveness, candidates, capacity, RandomStreams.forAnt(SEED, iteration++, 0));
+    }
+}
@@ -0,0 +1,55 @@
+package pl.antpack.core;
+
+import org.openjdk.jmh.annotations.*;
+import pl.antpack.core.ACOEngine.SimulationMetrics;
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.utils.BenchmarkGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one full {@link ACOEngine#step()}: attractiveness table, parallel construction,
+ * best selection, pheromone update and metrics. {@code parallelism = 0} runs on the common pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IterationBenchmark {
+
+    @Param({"150", "20000", "100000", "1000000"})
+    int itemCount;
+
+    @Param({"10", "30", "60"})
+    int capacityFactor;
+
+    @Param({"10", "50", "200"})
+    int antCount;
+
+    @Param({"1", "4", "0"})
+    int parallelism;
+
+    private ACOEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProblemInstance problem = BenchmarkGenerator.generateHardProblem(itemCount, capacityFactor);
+        engine = new ACOEngine(problem, SolverConfig.builder()
+                .antCount(antCount)
+                .parallelism(parallelism)
+                .seed(42L)
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public SimulationMetrics runIteration() {
+        return engine.step();
+    }
+}
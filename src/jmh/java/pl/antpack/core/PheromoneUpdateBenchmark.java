@@ -0,0 +1,67 @@
+package pl.antpack.core;
+
+import org.openjdk.jmh.annotations.*;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.utils.BenchmarkGenerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ACOEngine#updatePheromones} (evaporation and deposit) for a fixed colony
+ * of pre-built solutions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PheromoneUpdateBenchmark {
+
+    private static final long SEED = 42L;
+
+    @Param({"150", "20000", "100000", "1000000"})
+    int itemCount;
+
+    @Param({"10", "30", "60"})
+    int capacityFactor;
+
+    @Param({"10", "50", "200"})
+    int antCount;
+
+    private ACOEngine engine;
+    private List<Solution> solutions;
+    private Solution iterationBest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProblemInstance problem = BenchmarkGenerator.generateHardProblem(itemCount, capacityFactor);
+        engine = new ACOEngine(problem, SolverConfig.builder().antCount(antCount).build());
+        engine.step();
+
+        ItemColumns items = problem.items();
+        Ant ant = new Ant(items, ItemOrder.byWeightDescending(items));
+        PheromoneTrail pheromones = new PheromoneTrail(items.size(), 0.1);
+        double[] attractiveness = new AttractivenessTable(items).update(pheromones, 1.0, 2.0);
+
+        solutions = new ArrayList<>(antCount);
+        for (int i = 0; i < antCount; i++) {
+            solutions.add(ant.buildSolution(attractiveness, problem.capacity(), RandomStreams.forAnt(SEED, 1, i)));
+        }
+        iterationBest = solutions.stream().max(Comparator.comparingInt(Solution::getValue)).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public void updatePheromones() {
+        engine.updatePheromones(solutions, iterationBest);
+    }
+}
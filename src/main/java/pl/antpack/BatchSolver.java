@@ -0,0 +1,286 @@
+package pl.antpack;
+
+import pl.antpack.cluster.ColonyCoordinator;
+import pl.antpack.core.ACOEngine;
+import pl.antpack.core.AntSystemPheromoneUpdate;
+import pl.antpack.core.AutoSolver;
+import pl.antpack.core.ExactSolver;
+import pl.antpack.core.IslandSolver;
+import pl.antpack.core.PheromoneUpdateStrategy;
+import pl.antpack.core.PopulationPheromoneUpdate;
+import pl.antpack.core.ProblemReduction;
+import pl.antpack.core.SolveResult;
+import pl.antpack.core.Solution;
+import pl.antpack.core.SolverConfig;
+import pl.antpack.core.StopReason;
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.io.InstanceLoader;
+import pl.antpack.monitoring.MetricsServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point that solves instance files in batch without starting the user interface.
+ *
+ * Usage:
+ * <pre>
+ * BatchSolver [--iterations N] [--ants N] [--alpha A] [--beta B] [--rho R] [--threads N] [--seed S]
+ *             [--solver auto|aco] [--reduce]
+ *             [--target V] [--time-limit MS] [--patience N]
+ *             [--local-search K [--ls-budget MS]] [--candidates K [--candidate-refresh R]]
+ *             [--pheromone classic|as|eas|rank|mmas|paco [--archive K] [--archive-policy fifo|quality]]
+ *             [--islands N [--topology ring|full] [--migration elite|blend]] [--workers N]
+ *             [--migration-interval K] [--profile] [--metrics-port P] FILE...
+ * </pre>
+ * The options are described in the "Tryb wsadowy" section of the README.
+ *
+ * Files may be text or binary instances, see {@link InstanceLoader#read}. Every file is solved
+ * independently with the same configuration and one result line is printed per file, including
+ * the reason the run stopped. The process exits with status 2 on invalid arguments and with
+ * status 1 if any file could not be solved.
+ *
+ * A run ends after the given number of iterations, or earlier when its best solution reaches the
+ * upper bound of the instance, the target value, the time limit or goes {@code --patience}
+ * iterations without improvement.
+ *
+ * By default ({@code --solver auto}) instances small enough for the {@link ExactSolver} are solved
+ * exactly and the colonies of larger ones start from a scaled-down DP solution, see
+ * {@link AutoSolver}; {@code --solver aco} always runs the colonies from scratch. With
+ * {@code --reduce} the colonies only work on the core left by a {@link ProblemReduction}.
+ *
+ * {@code --local-search}, {@code --candidates} and {@code --pheromone} tune the colony itself:
+ * see {@link pl.antpack.core.KnapsackLocalSearch}, {@link SolverConfig#getCandidateListSize()},
+ * {@link AntSystemPheromoneUpdate} and {@link PopulationPheromoneUpdate}.
+ *
+ * With {@code --islands} every file is solved by an {@link IslandSolver} with one single-threaded
+ * colony per island; with {@code --workers} the colonies run in separate local processes
+ * coordinated by a {@link ColonyCoordinator} and always use the classic pheromone update.
+ *
+ * {@code --profile} prints the phase timings and per-ant counters of every local colony to the
+ * error stream, see {@link pl.antpack.core.EngineProfiler}, and {@code --metrics-port} serves their
+ * state for Prometheus, see {@link MetricsServer}.
+ */
+public class BatchSolver {
+
+    private static final int DEFAULT_ITERATIONS = 1000;
+    private static final int DEFAULT_MIGRATION_INTERVAL = 25;
+
+    public static void main(String[] args) {
+        SolverConfig.Builder config = SolverConfig.builder().maxIterations(DEFAULT_ITERATIONS);
+        List<Path> files = new ArrayList<>();
+        boolean reduce = false;
+        boolean auto = true;
+        int islands = 0;
+        int workers = 0;
+        int migrationInterval = DEFAULT_MIGRATION_INTERVAL;
+        int metricsPort = -1;
+        String pheromone = "classic";
+        int archiveSize = PopulationPheromoneUpdate.DEFAULT_ARCHIVE_SIZE;
+        PopulationPheromoneUpdate.Archive archivePolicy = PopulationPheromoneUpdate.Archive.FIFO;
+        IslandSolver.Topology topology = IslandSolver.Topology.RING;
+        IslandSolver.Migration migration = IslandSolver.Migration.ELITE;
+        SolverConfig solverConfig;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--iterations" -> config.maxIterations(Integer.parseInt(args[++i]));
+                    case "--ants" -> config.antCount(Integer.parseInt(args[++i]));
+                    case "--alpha" -> config.alpha(Double.parseDouble(args[++i]));
+                    case "--beta" -> config.beta(Double.parseDouble(args[++i]));
+                    case "--rho" -> config.evaporationRate(Double.parseDouble(args[++i]));
+                    case "--threads" -> config.parallelism(Integer.parseInt(args[++i]));
+                    case "--seed" -> config.seed(Long.parseLong(args[++i]));
+                    case "--reduce" -> reduce = true;
+                    case "--solver" -> auto = switch (args[++i]) {
+                        case "auto" -> true;
+                        case "aco" -> false;
+                        default -> throw new IllegalArgumentException("nieznany solver " + args[i]);
+                    };
+                    case "--target" -> config.targetValue(Long.parseLong(args[++i]));
+                    case "--time-limit" -> config.timeLimitMillis(Long.parseLong(args[++i]));
+                    case "--patience" -> config.maxIterationsWithoutImprovement(Integer.parseInt(args[++i]));
+                    case "--local-search" -> config.localSearchCount(Integer.parseInt(args[++i]));
+                    case "--ls-budget" -> config.localSearchBudgetMillis(Long.parseLong(args[++i]));
+                    case "--candidates" -> config.candidateListSize(Integer.parseInt(args[++i]));
+                    case "--candidate-refresh" -> config.candidateListRefresh(Integer.parseInt(args[++i]));
+                    case "--pheromone" -> pheromone = args[++i];
+                    case "--archive" -> archiveSize = Integer.parseInt(args[++i]);
+                    case "--archive-policy" -> archivePolicy = switch (args[++i]) {
+                        case "fifo" -> PopulationPheromoneUpdate.Archive.FIFO;
+                        case "quality" -> PopulationPheromoneUpdate.Archive.QUALITY;
+                        default -> throw new IllegalArgumentException("nieznany rodzaj archiwum " + args[i]);
+                    };
+                    case "--profile" -> config.profiling(true);
+                    case "--metrics-port" -> metricsPort = Integer.parseInt(args[++i]);
+                    case "--islands" -> islands = Integer.parseInt(args[++i]);
+                    case "--workers" -> workers = Integer.parseInt(args[++i]);
+                    case "--migration-interval" -> migrationInterval = Integer.parseInt(args[++i]);
+                    case "--topology" -> topology = switch (args[++i]) {
+                        case "ring" -> IslandSolver.Topology.RING;
+                        case "full" -> IslandSolver.Topology.FULLY_CONNECTED;
+                        default -> throw new IllegalArgumentException("nieznana topologia " + args[i]);
+                    };
+                    case "--migration" -> migration = switch (args[++i]) {
+                        case "elite" -> IslandSolver.Migration.ELITE;
+                        case "blend" -> IslandSolver.Migration.PHEROMONE_BLEND;
+                        default -> throw new IllegalArgumentException("nieznany rodzaj migracji " + args[i]);
+                    };
+                    case "-h", "--help" -> {
+                        printUsage();
+                        return;
+                    }
+                    default -> files.add(Path.of(args[i]));
+                }
+            }
+            if (migrationInterval < 1) throw new IllegalArgumentException("--migration-interval musi być dodatni");
+            if (pheromone.equals("paco") && migration == IslandSolver.Migration.PHEROMONE_BLEND) {
+                throw new IllegalArgumentException("--migration blend nie działa z --pheromone paco");
+            }
+            config.pheromoneUpdate(pheromoneUpdate(pheromone, archiveSize, archivePolicy));
+            solverConfig = config.build();
+        } catch (RuntimeException e) {
+            System.err.println("Niepoprawne argumenty: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+            return;
+        }
+
+        if (files.isEmpty()) {
+            printUsage();
+            System.exit(2);
+        }
+
+        if (solverConfig.getMaxIterations() == 0 && solverConfig.getTimeLimitMillis() == 0
+                && solverConfig.getMaxIterationsWithoutImprovement() == 0) {
+            System.err.println("Liczba iteracji, limit czasu lub cierpliwość musi być dodatnia.");
+            System.exit(2);
+        }
+        if (!pheromone.equals("classic") && workers > 0) {
+            System.err.println("SYSTEM: Procesy --workers używają klasycznej aktualizacji feromonów, --pheromone jest pomijane.");
+        }
+        MetricsServer metrics = null;
+        if (metricsPort >= 0) {
+            try {
+                metrics = new MetricsServer(new InetSocketAddress(metricsPort));
+                System.err.printf("SYSTEM: Metryki Prometheus: http://localhost:%d/metrics%n", metrics.getPort());
+            } catch (IOException e) {
+                System.err.println("Nie można uruchomić serwera metryk: " + e.getMessage());
+                System.exit(2);
+            }
+        }
+        boolean failed = false;
+        for (Path file : files) {
+            try {
+                ProblemInstance problem = InstanceLoader.read(file);
+                ProblemInstance target = problem;
+                SolverConfig runConfig = solverConfig;
+                ProblemReduction reduction = null;
+                if (reduce) {
+                    reduction = ProblemReduction.reduce(problem);
+                    target = reduction.core();
+                    runConfig = reduction.adapt(solverConfig);
+                    System.err.printf("SYSTEM: %s: rdzeń %d z %d przedmiotów, pojemność rdzenia %d.%n",
+                            file, target.items().size(), problem.items().size(), target.capacity());
+                }
+
+                SolveResult result;
+                if (reduction != null && reduction.isSolved()) {
+                    result = new SolveResult(reduction.incumbent(), 0, 0, StopReason.OPTIMAL);
+                } else if (auto && AutoSolver.prefersExact(target)) {
+                    long start = System.currentTimeMillis();
+                    result = new SolveResult(ExactSolver.solve(target), 0, System.currentTimeMillis() - start,
+                            StopReason.OPTIMAL);
+                } else if (workers > 0) {
+                    result = solveDistributed(target, runConfig, workers, migrationInterval);
+                } else if (islands > 0) {
+                    try (IslandSolver solver = IslandSolver.uniform(target, runConfig, islands,
+                            migrationInterval, topology, migration)) {
+                        if (auto) {
+                            Solution seed = AutoSolver.seed(target);
+                            for (ACOEngine island : solver.getIslands()) island.seedSolution(seed);
+                        }
+                        if (metrics != null) {
+                            for (ACOEngine island : solver.getIslands()) metrics.register(island, file.toString());
+                        }
+                        result = solver.run();
+                        List<ACOEngine> colonies = solver.getIslands();
+                        for (int k = 0; k < colonies.size(); k++) {
+                            printProfile(file + " [wyspa " + k + "]", colonies.get(k));
+                            if (metrics != null) metrics.unregister(colonies.get(k));
+                        }
+                    }
+                } else {
+                    long start = System.currentTimeMillis();
+                    try (ACOEngine engine = new ACOEngine(target, runConfig)) {
+                        if (auto) engine.seedSolution(AutoSolver.seed(target));
+                        if (metrics != null) metrics.register(engine, file.toString());
+                        SolveResult run = engine.run();
+                        result = new SolveResult(run.best(), run.iterations(), System.currentTimeMillis() - start,
+                                run.stopReason());
+                        printProfile(file.toString(), engine);
+                        if (metrics != null) metrics.unregister(engine);
+                    }
+                }
+                if (reduction != null && !reduction.isSolved()) result = reduction.expand(result);
+                System.out.printf("%s\tpojemność=%d\tprzedmioty=%d\tnajlepszy=%d\twaga=%d\titeracje=%d\tczas=%dms\tziarno=%d\tpowód=%s%n",
+                        file, problem.capacity(), problem.items().size(),
+                        result.best().getValue(),
+                        result.best().getWeight(),
+                        result.iterations(), result.elapsedMillis(), solverConfig.getSeed(), result.stopReason());
+            } catch (Exception e) {
+                failed = true;
+                System.err.println(file + ": błąd - " + e.getMessage());
+            }
+        }
+        if (metrics != null) metrics.close();
+        if (failed) System.exit(1);
+    }
+
+    /**
+     * Solves the instance with colonies in {@code workers} local processes. Unless the number of
+     * threads was given explicitly, the cores are split evenly between the processes.
+     */
+    private static SolveResult solveDistributed(ProblemInstance problem, SolverConfig config, int workers,
+                                                int migrationInterval) throws Exception {
+        if (config.getParallelism() == 0) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            config = config.toBuilder().parallelism(Math.max(1, cores / workers)).build();
+        }
+        try (ColonyCoordinator coordinator = new ColonyCoordinator(InetAddress.getLoopbackAddress(), 0, System.err::println)) {
+            coordinator.spawnLocalWorkers(workers);
+            return coordinator.solve(problem, config, workers, migrationInterval, 0);
+        }
+    }
+
+    private static PheromoneUpdateStrategy.Factory pheromoneUpdate(String name, int archiveSize,
+                                                                   PopulationPheromoneUpdate.Archive archivePolicy) {
+        return switch (name) {
+            case "classic" -> SolverConfig.defaults().getPheromoneUpdate();
+            case "as" -> AntSystemPheromoneUpdate.factory(AntSystemPheromoneUpdate.Variant.ANT_SYSTEM);
+            case "eas" -> AntSystemPheromoneUpdate.factory(AntSystemPheromoneUpdate.Variant.ELITIST);
+            case "rank" -> AntSystemPheromoneUpdate.factory(AntSystemPheromoneUpdate.Variant.RANK_BASED);
+            case "mmas" -> AntSystemPheromoneUpdate.factory(AntSystemPheromoneUpdate.Variant.MAX_MIN);
+            case "paco" -> PopulationPheromoneUpdate.factory(archiveSize, archivePolicy);
+            default -> throw new IllegalArgumentException("nieznana aktualizacja feromonów " + name);
+        };
+    }
+
+    private static void printProfile(String label, ACOEngine engine) {
+        if (engine.getProfiler() != null) System.err.println(label + ": " + engine.getProfiler().report());
+    }
+
+    private static void printUsage() {
+        System.err.println("Użycie: BatchSolver [--iterations N] [--ants N] [--alpha A] [--beta B] [--rho R] [--threads N] [--seed S]"
+                + " [--solver auto|aco] [--reduce] [--target V] [--time-limit MS] [--patience N] [--local-search K [--ls-budget MS]]"
+                + " [--candidates K [--candidate-refresh R]]"
+                + " [--pheromone classic|as|eas|rank|mmas|paco [--archive K] [--archive-policy fifo|quality]] [--profile] [--metrics-port P]"
+                + " [--islands N [--topology ring|full] [--migration elite|blend]] [--workers N]"
+                + " [--migration-interval K] PLIK...");
+    }
+}
@@ -0,0 +1,338 @@
+package pl.antpack.cluster;
+
+import pl.antpack.core.RandomStreams;
+import pl.antpack.core.SolveResult;
+import pl.antpack.core.Solution;
+import pl.antpack.core.SolverConfig;
+import pl.antpack.core.StopReason;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coordinates colonies running in separate {@link ColonyWorker} processes.
+ *
+ * The coordinator listens on a TCP port, waits for the expected number of workers to connect
+ * and ships the instance to each of them once. Afterwards workers only exchange compact elite
+ * solutions: whenever a worker reports its best solution, the coordinator keeps track of the
+ * overall best and forwards the solution to the next live worker on a ring. The receiving
+ * colony reinforces the immigrant's items, which is the pheromone delta of the migration, so no
+ * trail ever has to be sent. The coordinator does not trust the value and weight a worker
+ * reports: it recomputes both from the solution's items before counting or forwarding it.
+ *
+ * When a worker proves its solution optimal or reaches the target value, the other workers are
+ * told to stop, since none of them can do better.
+ *
+ * A worker that disconnects, crashes, sends a malformed message or an infeasible or misvalued
+ * solution, or stays silent for
+ * {@value #WORKER_TIMEOUT_MS} ms (workers send a heartbeat every few seconds, however long their
+ * iterations take) is dropped from the ring and the run continues with the remaining ones; its
+ * last reported solution still counts towards the result.
+ */
+public class ColonyCoordinator implements AutoCloseable {
+
+    private static final int ACCEPT_TIMEOUT_MS = 30_000;
+    private static final long STOP_GRACE_MS = 10_000;
+    private static final int WORKER_TIMEOUT_MS = 60_000;
+
+    private final ServerSocket server;
+    private final Consumer<String> logger;
+    private final List<Process> processes = new ArrayList<>();
+    private final List<WorkerLink> links = new ArrayList<>();
+
+    private Solution best;
+    private CountDownLatch finished;
+
+    /**
+     * Opens the coordinator socket.
+     *
+     * @param bindAddress the address to listen on, e.g. the loopback address for local workers
+     * @param port        the port to listen on, or 0 to pick a free one
+     * @param logger      receives progress and failure messages
+     * @throws IOException if the socket cannot be opened
+     */
+    public ColonyCoordinator(InetAddress bindAddress, int port, Consumer<String> logger) throws IOException {
+        this.server = new ServerSocket(port, 50, bindAddress);
+        this.server.setSoTimeout(ACCEPT_TIMEOUT_MS);
+        this.logger = logger;
+    }
+
+    /**
+     * @return the port the coordinator listens on
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Starts worker processes on this machine with the same JVM and class path as the coordinator.
+     * The processes are destroyed when the coordinator is closed.
+     *
+     * @param count the number of processes to start
+     * @throws IOException if a process cannot be started
+     */
+    public void spawnLocalWorkers(int count) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (int i = 0; i < count; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    ColonyWorker.class.getName(), server.getInetAddress().getHostAddress(), String.valueOf(getPort()))
+                    .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+    }
+
+    /**
+     * Distributes the instance to {@code workerCount} workers and waits for the run to finish.
+     *
+     * Each worker runs until one of the stop criteria from {@code config} is met. If {@code timeoutMillis}
+     * is positive, workers still running after that time are asked to stop and report.
+     * Worker {@code i} uses the seed {@code RandomStreams.derive(config.getSeed(), i)}.
+     *
+     * @param instance          the problem to solve
+     * @param config            the colony parameters used by every worker
+     * @param workerCount       the number of workers to wait for
+     * @param migrationInterval the number of iterations between elite reports, at least 1
+     * @param timeoutMillis     the wall-clock budget, or 0 for none
+     * @return the best solution reported by any worker and the most conclusive stop reason among them
+     * @throws IllegalArgumentException if {@code migrationInterval} is not positive
+     * @throws IOException          if not a single worker connects or none reports a solution
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public SolveResult solve(ProblemInstance instance, SolverConfig config, int workerCount,
+                             int migrationInterval, long timeoutMillis) throws IOException, InterruptedException {
+        if (migrationInterval < 1) throw new IllegalArgumentException("migrationInterval must be positive");
+        long start = System.currentTimeMillis();
+        finished = new CountDownLatch(workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                logger.accept("ALARM: Nie doczekano się pracownika " + i + ": " + e.getMessage());
+                finished.countDown();
+                continue;
+            }
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(WORKER_TIMEOUT_MS);
+            WorkerLink link = new WorkerLink(links.size(), socket, instance);
+            try {
+                SolverConfig workerConfig = config.toBuilder()
+                        .seed(RandomStreams.derive(config.getSeed(), i))
+                        .build();
+                Wire.writeInstance(link.out, instance, workerConfig, migrationInterval);
+            } catch (IOException e) {
+                link.fail(e);
+                continue;
+            }
+            synchronized (this) {
+                links.add(link);
+            }
+            Thread reader = new Thread(link::readMessages, "colony-coordinator-" + link.index);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        if (links.isEmpty()) throw new IOException("No worker connected");
+        logger.accept("SYSTEM: Połączono pracowników: " + links.size());
+
+        boolean timedOut = false;
+        if (timeoutMillis <= 0) {
+            finished.await();
+        } else if (!finished.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            timedOut = true;
+            for (WorkerLink link : links) link.send(Wire.STOP, null);
+            finished.await(STOP_GRACE_MS, TimeUnit.MILLISECONDS);
+        }
+
+        int iterations = 0;
+        StopReason reason = timedOut ? StopReason.TIME_LIMIT : null;
+        synchronized (this) {
+            if (best == null) throw new IOException("No worker reported a solution");
+            for (WorkerLink link : links) {
+                iterations += link.iterations;
+                if (link.reason != null && (reason == null || link.reason.compareTo(reason) < 0)) reason = link.reason;
+            }
+            return new SolveResult(best, iterations, System.currentTimeMillis() - start,
+                    reason != null ? reason : StopReason.STOPPED);
+        }
+    }
+
+    /**
+     * Asks every worker except {@code finished} to stop, once a worker has reached the goal of the run.
+     */
+    private void stopOthers(WorkerLink finished) {
+        List<WorkerLink> others;
+        synchronized (this) {
+            others = new ArrayList<>(links);
+        }
+        for (WorkerLink link : others) {
+            if (link != finished) link.send(Wire.STOP, null);
+        }
+    }
+
+    private synchronized void offer(Solution solution) {
+        if (solution != null && (best == null || solution.getValue() > best.getValue())) {
+            best = solution;
+            logger.accept("SUKCES: Nowy rekord klastra: " + solution.getValue() + " pkt");
+        }
+    }
+
+    /**
+     * @return the next worker after {@code index} on the ring that is still alive, or {@code null}
+     */
+    private synchronized WorkerLink nextAlive(int index) {
+        for (int k = 1; k < links.size(); k++) {
+            WorkerLink candidate = links.get((index + k) % links.size());
+            if (candidate.alive) return candidate;
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (WorkerLink link : links) {
+            link.markGone();
+            link.close();
+        }
+        for (Process process : processes) process.destroy();
+        server.close();
+    }
+
+    /**
+     * The coordinator side of the connection to one worker.
+     */
+    private final class WorkerLink {
+        final int index;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final ProblemInstance instance;
+        volatile boolean alive = true;
+        int iterations;
+        StopReason reason;
+
+        WorkerLink(int index, Socket socket, ProblemInstance instance) throws IOException {
+            this.index = index;
+            this.socket = socket;
+            this.instance = instance;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void readMessages() {
+            try {
+                while (true) {
+                    byte tag = in.readByte();
+                    if (tag == Wire.HEARTBEAT) continue;
+                    if (tag != Wire.ELITE && tag != Wire.DONE) throw new IOException("Unexpected message " + tag);
+                    int iteration = in.readInt();
+                    Solution solution = verify(Wire.readSolution(in, instance.items().size()));
+                    synchronized (ColonyCoordinator.this) {
+                        iterations = iteration;
+                    }
+                    offer(solution);
+                    if (tag == Wire.DONE) {
+                        int ordinal = in.readByte();
+                        if (ordinal < 0 || ordinal >= StopReason.values().length) {
+                            throw new IOException("Unknown stop reason " + ordinal);
+                        }
+                        StopReason done = StopReason.values()[ordinal];
+                        synchronized (ColonyCoordinator.this) {
+                            reason = done;
+                        }
+                        if (markGone()) finished.countDown();
+                        if (done == StopReason.OPTIMAL || done == StopReason.TARGET_REACHED) stopOthers(this);
+                        return;
+                    }
+
+                    WorkerLink target = nextAlive(index);
+                    if (target != null) target.send(Wire.IMMIGRANT, solution);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Recomputes the value and weight of a reported solution from its items.
+         *
+         * @return the solution, or {@code null} if none was reported
+         * @throws IOException if the solution is over capacity or its value or weight differ from the reported ones
+         */
+        private Solution verify(Solution solution) throws IOException {
+            if (solution == null) return null;
+            ItemColumns items = instance.items();
+            long value = 0;
+            long weight = 0;
+            for (int id = solution.nextSelected(0); id >= 0; id = solution.nextSelected(id + 1)) {
+                if (id >= items.size()) throw new IOException("Solution packs unknown item " + id);
+                value += items.value(id);
+                weight += items.weight(id);
+            }
+            if (weight > instance.capacity()) {
+                throw new IOException("Solution exceeds the capacity: " + weight + " > " + instance.capacity());
+            }
+            if (value != solution.getValue() || weight != solution.getWeight()) {
+                throw new IOException("Solution does not match the instance: reported " + solution.getValue() + "/"
+                        + solution.getWeight() + ", actual " + value + "/" + weight);
+            }
+            return solution;
+        }
+
+        void send(byte tag, Solution solution) {
+            if (!alive) return;
+            try {
+                synchronized (out) {
+                    out.writeByte(tag);
+                    if (tag == Wire.IMMIGRANT) Wire.writeSolution(out, solution);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Marks the worker as no longer taking part in the run.
+         *
+         * @return {@code true} for the first call only, so the worker is counted down exactly once
+         */
+        synchronized boolean markGone() {
+            if (!alive) return false;
+            alive = false;
+            return true;
+        }
+
+        void fail(Exception e) {
+            if (!markGone()) return;
+            String reason = e.getMessage() != null ? e.getMessage() : "połączenie zamknięte";
+            logger.accept("ALARM: Utracono pracownika " + index + " (" + reason + "). Kontynuujemy z pozostałymi.");
+            close();
+            finished.countDown();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package pl.antpack.cluster;
+
+import pl.antpack.core.ACOEngine;
+import pl.antpack.core.Solution;
+import pl.antpack.core.StopReason;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A worker process running one colony for a {@link ColonyCoordinator}.
+ *
+ * Usage: {@code ColonyWorker HOST PORT}
+ *
+ * The worker connects to the coordinator, receives the instance and parameters once and then
+ * runs its own {@link ACOEngine}. Every migration interval it reports its best solution and
+ * absorbs the immigrants the coordinator has sent in the meantime. Immigrants are applied on
+ * the engine thread between iterations, so the engine is never touched concurrently. A separate
+ * thread sends a heartbeat every few seconds, so the coordinator does not take a long iteration
+ * for a hung worker. The worker exits after sending its final report, or as soon as the
+ * connection to the coordinator is lost.
+ */
+public class ColonyWorker {
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Queue<Solution> immigrants = new ConcurrentLinkedQueue<>();
+    private volatile boolean stopRequested = false;
+    private volatile boolean reported = false;
+
+    ColonyWorker(Socket socket) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Użycie: ColonyWorker HOST PORT");
+            System.exit(2);
+        }
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            new ColonyWorker(socket).serve();
+        }
+    }
+
+    /**
+     * Receives the assignment, runs the colony and sends the final report.
+     */
+    void serve() throws IOException {
+        if (in.readByte() != Wire.INSTANCE) throw new IOException("Expected an instance message");
+        Wire.Assignment assignment = Wire.readInstance(in);
+        int itemCount = assignment.instance().items().size();
+
+        Thread reader = new Thread(() -> readMessages(itemCount), "colony-worker-reader");
+        reader.setDaemon(true);
+        reader.start();
+        Thread heartbeat = new Thread(this::sendHeartbeats, "colony-worker-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+
+        try (ACOEngine engine = new ACOEngine(assignment.instance(), assignment.config())) {
+            StopReason reason;
+            while ((reason = engine.evaluateStopCriteria()) == null) {
+                if (stopRequested) {
+                    reason = StopReason.STOPPED;
+                    break;
+                }
+                engine.step();
+                if (engine.getIteration() % assignment.migrationInterval() == 0) {
+                    Solution immigrant;
+                    while ((immigrant = immigrants.poll()) != null) {
+                        engine.acceptImmigrant(immigrant);
+                    }
+                    synchronized (out) {
+                        out.writeByte(Wire.ELITE);
+                        out.writeInt(engine.getIteration());
+                        Wire.writeSolution(out, engine.getGlobalBest());
+                        out.flush();
+                    }
+                }
+            }
+
+            synchronized (out) {
+                out.writeByte(Wire.DONE);
+                out.writeInt(engine.getIteration());
+                Wire.writeSolution(out, engine.getGlobalBest());
+                out.writeByte(reason.ordinal());
+                out.flush();
+            }
+            reported = true;
+        }
+    }
+
+    private void sendHeartbeats() {
+        try {
+            while (!reported && !stopRequested) {
+                Thread.sleep(Wire.HEARTBEAT_INTERVAL_MS);
+                synchronized (out) {
+                    if (reported) return;
+                    out.writeByte(Wire.HEARTBEAT);
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            stopRequested = true;
+        }
+    }
+
+    private void readMessages(int itemCount) {
+        try {
+            while (true) {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case Wire.IMMIGRANT -> {
+                        Solution immigrant = Wire.readSolution(in, itemCount);
+                        if (immigrant != null) immigrants.add(immigrant);
+                    }
+                    case Wire.STOP -> stopRequested = true;
+                    default -> throw new IOException("Unexpected message " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            stopRequested = true;
+        } catch (IOException e) {
+            stopRequested = true;
+            if (!reported) System.err.println("ColonyWorker: utracono połączenie z koordynatorem - " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package pl.antpack.cluster;
+
+import pl.antpack.core.Solution;
+import pl.antpack.core.SolverConfig;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary protocol spoken between the {@link ColonyCoordinator} and its {@link ColonyWorker}s.
+ *
+ * Every message starts with a one-byte tag. The instance is shipped once per worker; after that
+ * only solutions travel over the wire, encoded as their value and weight followed by the
+ * solution's bitset of selected item ids (one bit per item, packed into 64-bit words).
+ */
+final class Wire {
+
+    /** Coordinator to worker: instance, parameters and migration interval. */
+    static final byte INSTANCE = 1;
+    /** Worker to coordinator: the worker's current best solution. */
+    static final byte ELITE = 2;
+    /** Coordinator to worker: a solution migrated from another worker. */
+    static final byte IMMIGRANT = 3;
+    /** Coordinator to worker: finish the current iteration and report. */
+    static final byte STOP = 4;
+    /**
+     * Worker to coordinator: final report, sent right before the worker disconnects. Unlike
+     * {@link #ELITE} it ends with the ordinal of the worker's {@link pl.antpack.core.StopReason}.
+     */
+    static final byte DONE = 5;
+    /**
+     * Worker to coordinator: no payload, sent every {@link #HEARTBEAT_INTERVAL_MS} so that the
+     * coordinator can tell a slow colony from a hung process or a dead link.
+     */
+    static final byte HEARTBEAT = 6;
+
+    /** Interval between two {@link #HEARTBEAT}s of a worker. */
+    static final long HEARTBEAT_INTERVAL_MS = 5_000;
+
+    private Wire() {}
+
+    static void writeInstance(DataOutputStream out, ProblemInstance instance, SolverConfig config,
+                              int migrationInterval) throws IOException {
+        ItemColumns items = instance.items();
+        out.writeByte(INSTANCE);
+        out.writeInt(instance.capacity());
+        out.writeInt(items.size());
+        for (int i = 0; i < items.size(); i++) out.writeInt(items.weight(i));
+        for (int i = 0; i < items.size(); i++) out.writeInt(items.value(i));
+        out.writeDouble(config.getAlpha());
+        out.writeDouble(config.getBeta());
+        out.writeDouble(config.getEvaporationRate());
+        out.writeInt(config.getAntCount());
+        out.writeInt(config.getMaxIterations());
+        out.writeInt(config.getParallelism());
+        out.writeLong(config.getSeed());
+        out.writeLong(config.getTargetValue());
+        out.writeLong(config.getTimeLimitMillis());
+        out.writeInt(config.getMaxIterationsWithoutImprovement());
+        out.writeBoolean(config.isStopAtOptimum());
+        out.writeInt(config.getLocalSearchCount());
+        out.writeLong(config.getLocalSearchBudgetMillis());
+        out.writeInt(config.getCandidateListSize());
+        out.writeInt(config.getCandidateListRefresh());
+        out.writeInt(migrationInterval);
+        out.flush();
+    }
+
+    /**
+     * Reads the body of an {@link #INSTANCE} message (the tag has already been consumed).
+     */
+    static Assignment readInstance(DataInputStream in) throws IOException {
+        int capacity = in.readInt();
+        int n = in.readInt();
+        int[] weights = new int[n];
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) weights[i] = in.readInt();
+        for (int i = 0; i < n; i++) values[i] = in.readInt();
+        SolverConfig config = SolverConfig.builder()
+                .alpha(in.readDouble())
+                .beta(in.readDouble())
+                .evaporationRate(in.readDouble())
+                .antCount(in.readInt())
+                .maxIterations(in.readInt())
+                .parallelism(in.readInt())
+                .seed(in.readLong())
+                .targetValue(in.readLong())
+                .timeLimitMillis(in.readLong())
+                .maxIterationsWithoutImprovement(in.readInt())
+                .stopAtOptimum(in.readBoolean())
+                .localSearchCount(in.readInt())
+                .localSearchBudgetMillis(in.readLong())
+                .candidateListSize(in.readInt())
+                .candidateListRefresh(in.readInt())
+                .build();
+        int migrationInterval = in.readInt();
+        return new Assignment(new ProblemInstance(new ItemColumns(weights, values), capacity), config, migrationInterval);
+    }
+
+    /**
+     * Writes a possibly {@code null} solution as a presence flag, its value, weight and item bitset.
+     */
+    static void writeSolution(DataOutputStream out, Solution solution) throws IOException {
+        if (solution == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        long[] words = solution.toWords();
+        out.writeBoolean(true);
+        out.writeInt(solution.getValue());
+        out.writeInt(solution.getWeight());
+        out.writeInt(words.length);
+        for (long word : words) out.writeLong(word);
+    }
+
+    /**
+     * Reads a solution written by {@link #writeSolution}.
+     *
+     * @param itemCount the number of items of the instance, used to validate the bitset length
+     * @return the decoded solution, or {@code null} if none was sent
+     */
+    static Solution readSolution(DataInputStream in, int itemCount) throws IOException {
+        if (!in.readBoolean()) return null;
+        int value = in.readInt();
+        int weight = in.readInt();
+        int wordCount = in.readInt();
+        if (wordCount != Solution.wordCount(itemCount)) {
+            throw new IOException("Solution bitset does not match the instance size");
+        }
+        long[] words = new long[wordCount];
+        for (int w = 0; w < wordCount; w++) words[w] = in.readLong();
+        return new Solution(words, value, weight);
+    }
+
+    /**
+     * The work a worker receives from the coordinator.
+     */
+    record Assignment(ProblemInstance instance, SolverConfig config, int migrationInterval) {}
+}
@@ -1,34 +1,80 @@
 package pl.antpack.core;
 
-import javafx.application.Platform;
-import javafx.concurrent.Task;
-import pl.antpack.model.Item;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
 
 import java.util.*;
-import java.util.function.Consumer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 /**
+ * Ant Colony Optimization engine for the 0/1 knapsack problem.
  *
+ * The engine is plain Java and fully synchronous: {@link #step()} runs exactly one iteration
+ * on the calling thread (ant construction itself is parallel), {@link #run()} keeps stepping
+ * until one of the configured stop criteria is met or {@link #stop()} is called, and
+ * {@link #solve(ProblemInstance, SolverConfig)} wraps a whole run in a single call.
+ * Progress is reported to {@link EngineListener}s; user interfaces adapt those callbacks
+ * to their own threading model.
+ *
+ * An upper bound on the optimal value is computed once per instance (the tighter of the Dantzig
+ * and Martello–Toth bounds, see {@link UpperBounds}). The gap between that bound and the best
+ * solution is reported with every iteration, and a run ends as soon as the gap closes, since
+ * the best solution is then provably optimal.
+ *
+ * Stagnation is detected from the diversity of the colony rather than from a fixed number of
+ * iterations without improvement: once the solutions of the ants and the pheromone trail have both
+ * converged for a while, the trail is first smoothed towards its mean and only restarted from the
+ * best solution if smoothing does not help, see {@link ConvergenceDetector}.
+ *
+ * Iterations, new global best solutions and stagnation responses are reported as JDK Flight Recorder
+ * events ({@code pl.antpack.*}), tagged with the {@link #getColonyId() colony id}; when no recording
+ * is running, the events are never filled in.
  */
-public class ACOEngine {
+public final class ACOEngine implements AutoCloseable {
+
+    private static final AtomicInteger COLONY_IDS = new AtomicInteger();
 
-    private final List<Item> items;
+    private final int colonyId = COLONY_IDS.getAndIncrement();
+    private final ItemColumns columns;
+    private final ThreadLocal<Ant> ants;
+    private final AttractivenessTable attractivenessTable;
     private final int capacity;
-    private double alpha;
-    private double beta;
-    private double evaporationRate;
-    private int antCount = 50;
-    private double[] pheromones;
+    private final ForkJoinPool pool;
+    private volatile double alpha;
+    private volatile double beta;
+    private volatile double evaporationRate;
+    private final int antCount;
+    private final int maxIterations;
+    private final long seed;
+    private final long upperBound;
+    private final long targetValue;
+    private final long timeLimitMillis;
+    private final int maxIterationsWithoutImprovement;
+    private final boolean stopAtOptimum;
+    private final LocalSearch localSearch;
+    private final int localSearchCount;
+    private final long localSearchBudgetNanos;
+    private final EngineProfiler profiler;
+    private final PheromoneTrail pheromones;
+    private final PheromoneUpdateStrategy pheromoneUpdate;
+    private final ConvergenceDetector convergence;
+    private final int candidateListSize;
+    private final int candidateListRefresh;
+    private CandidateList candidates;
+    private int candidatesSelectedAt;
 
     private Solution globalBestSolution;
-    private boolean isRunning = false;
-    private Thread workerThread;
-    private Consumer<SimulationMetrics> onIterationFinished;
-    private Consumer<String> onLogMessage;
+    private volatile boolean stopRequested = false;
+    private final List<EngineListener> listeners = new CopyOnWriteArrayList<>();
 
+    private int iteration = 0;
     private int stagnationCounter = 0;
-    private final int MAX_STAGNATION = 60;
+    private int pheromoneResets = 0;
+    private int pheromoneSmoothings = 0;
+    private int lastImprovement = 0;
     private long startTime;
 
     /**
@@ -37,36 +83,90 @@ public class ACOEngine {
      *
      * It captures various statistical and tracking data to monitor the performance and progress of
      * the optimization process and to provide feedback to the calling code for further analysis or display.
+     * The pheromone levels are not part of the record, so creating it costs O(1); consumers that need
+     * them use {@link #copyPheromones} or a {@link MetricsPublisher}.
      *
      * @param iteration         The current iteration number of the simulation.
      * @param avgValue          The average value of the solutions found by the ants in this iteration.
      * @param bestInIterationVal The best value among all solutions found by the ants in this iteration.
      * @param globalBestVal     The overall best value encountered in the simulation so far.
-     * @param bestItemIds       The list of item IDs included in the best solution for this iteration.
-     * @param pheromonesSnapshot A snapshot of the pheromone levels at the end of this iteration.
+     * @param iterationBest     The best solution of this iteration, including its packed item ids.
      * @param bestWeight        The total weight of items in the best solution for this iteration.
+     * @param upperBound        An upper bound on the optimal value of the instance.
+     * @param gap               The relative gap {@code (upperBound - globalBestVal) / upperBound};
+     *                          0 means the global best solution is optimal.
+     * @param diversity         The mean pairwise Hamming distance of the solutions of this iteration
+     *                          divided by twice their mean size: 0 when all ants built the same solution,
+     *                          1 when no two share an item; {@code NaN} for a single ant.
+     * @param branchingFactor   The number of items whose pheromone is within the top 95% of the range of
+     *                          the trail, divided by the mean solution size; close to 1 once the trail
+     *                          has converged on one solution. Only sampled every few iterations, so
+     *                          it may repeat the value of an earlier iteration.
      */
     public record SimulationMetrics(int iteration, double avgValue, int bestInIterationVal,
-                                    int globalBestVal, List<Integer> bestItemIds,
-                                    double[] pheromonesSnapshot, double bestWeight) {}
+                                    int globalBestVal, Solution iterationBest, double bestWeight,
+                                    long upperBound, double gap, double diversity, double branchingFactor) {}
 
     /**
      * Constructs an instance of the ACOEngine.
-     * Initializes the Ant Colony Optimization engine with a list of items and a capacity.
+     * Initializes the Ant Colony Optimization engine with a problem instance and a configuration.
      * This initialization also prepares the pheromone matrix and resets the engine state.
      *
-     * @param items    the list of items available for the optimization process, where each item contains an id, weight, and value.
-     * @param capacity the maximum capacity of the knapsack for which the optimization is performed.
+     * @param instance the items available for the optimization process and the knapsack capacity.
+     * @param config   the parameters of the algorithm; alpha, beta and rho can later be changed
+     *                 with {@link #updateParameters}.
      */
-    public ACOEngine(List<Item> items, int capacity) {
-        this.items = items;
-        this.capacity = capacity;
-        this.pheromones = new double[items.size()];
+    public ACOEngine(ProblemInstance instance, SolverConfig config) {
+        this.columns = instance.items();
+        int[] heavyFirst = ItemOrder.byWeightDescending(columns);
+        this.ants = ThreadLocal.withInitial(() -> new Ant(columns, heavyFirst));
+        this.attractivenessTable = new AttractivenessTable(columns);
+        this.capacity = instance.capacity();
+        this.pool = config.getParallelism() > 0 ? new ForkJoinPool(config.getParallelism()) : null;
+        this.alpha = config.getAlpha();
+        this.beta = config.getBeta();
+        this.evaporationRate = config.getEvaporationRate();
+        this.antCount = config.getAntCount();
+        this.maxIterations = config.getMaxIterations();
+        this.seed = config.getSeed();
+        int[] byEfficiency = ItemOrder.byEfficiencyDescending(columns);
+        this.upperBound = Math.min(UpperBounds.dantzig(columns, capacity, byEfficiency),
+                UpperBounds.martelloToth(columns, capacity, byEfficiency));
+        this.targetValue = config.getTargetValue();
+        this.timeLimitMillis = config.getTimeLimitMillis();
+        this.maxIterationsWithoutImprovement = config.getMaxIterationsWithoutImprovement();
+        this.stopAtOptimum = config.isStopAtOptimum();
+        this.localSearchCount = config.getLocalSearchCount();
+        this.localSearch = localSearchCount > 0 ? config.getLocalSearch().create(columns, capacity) : null;
+        this.localSearchBudgetNanos = config.getLocalSearchBudgetMillis() * 1_000_000L;
+        this.profiler = config.isProfiling() ? new EngineProfiler() : null;
+        this.pheromones = new PheromoneTrail(columns.size(), evaporationRate);
+        this.pheromoneUpdate = config.getPheromoneUpdate().create(columns, capacity, upperBound);
+        this.convergence = new ConvergenceDetector(columns.size());
+        this.candidateListSize = config.getCandidateListSize();
+        this.candidateListRefresh = config.getCandidateListRefresh();
         reset();
     }
 
+    /**
+     * Solves the given instance synchronously on the calling thread.
+     * The run ends when one of the stop criteria of the configuration is met, so the configuration
+     * should set an iteration, time or no-improvement limit; otherwise the run only ends at a
+     * provably optimal solution or when another thread calls {@link #stop()}.
+     *
+     * @param instance the problem to solve
+     * @param config   the algorithm parameters
+     * @return the best solution found together with run statistics
+     */
+    public static SolveResult solve(ProblemInstance instance, SolverConfig config) {
+        try (ACOEngine engine = new ACOEngine(instance, config)) {
+            return engine.run();
+        }
+    }
+
     /**
      * Updates the parameters of the Ant Colony Optimization algorithm.
+     * Safe to call from any thread; the new values are picked up by the next iteration.
      *
      * @param alpha The importance factor of pheromone trails in decision-making.
      * @param beta The importance factor of heuristic information in decision-making.
@@ -79,11 +179,16 @@ public class ACOEngine {
     }
 
     /**
+     * Registers a listener notified about iterations and log messages.
      *
+     * @param listener the listener to add
      */
-    public void setCallbacks(Consumer<SimulationMetrics> onMetrics, Consumer<String> onLog) {
-        this.onIterationFinished = onMetrics;
-        this.onLogMessage = onLog;
+    public void addListener(EngineListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(EngineListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -92,8 +197,8 @@ public class ACOEngine {
      * This method performs the following operations:
      * - Stops any ongoing simulation by invoking the {@code stop} method.
      * - Resets the global best solution to {@code null}.
-     * - Resets the stagnation counter to 0.
-     * - Reinitializes the pheromone matrix to its default values (all entries set to 1.0).
+     * - Resets the iteration, stagnation, pheromone smoothing and reset counters to 0.
+     * - Reinitializes the pheromone matrix through the {@link PheromoneUpdateStrategy} (classically all entries set to 1.0).
      *
      * This method is typically used to prepare the ACO engine for a fresh simulation
      * or to restart an ongoing optimization process.
@@ -101,67 +206,107 @@ public class ACOEngine {
     public void reset() {
         stop();
         this.globalBestSolution = null;
+        this.iteration = 0;
         this.stagnationCounter = 0;
-        Arrays.fill(pheromones, 1.0);
+        this.pheromoneResets = 0;
+        this.pheromoneSmoothings = 0;
+        this.lastImprovement = 0;
+        convergence.reset();
+        this.candidates = null;
+        pheromoneUpdate.initialize(pheromones, evaporationRate);
     }
 
     /**
-     * Logs a message using the callback provided for logging. If the logging callback is set,
-     * the message will be passed to it for processing in the JavaFX application thread.
+     * Passes a message to every registered listener.
      *
      * @param msg the message to be logged
      */
     private void log(String msg) {
-        if (onLogMessage != null) Platform.runLater(() -> onLogMessage.accept(msg));
+        for (EngineListener listener : listeners) {
+            listener.onLog(msg);
+        }
     }
 
     /**
-     * Starts the Ant Colony Optimization (ACO) engine simulation.
-     *
-     * This method initializes and starts the worker thread for running the ACO algorithm. It performs the following actions:
-     * 1. Checks if the simulation is already running, and if so, does nothing.
-     * 2. Marks the simulation as running and records the start time.
-     * 3. Initializes and starts a background thread using a JavaFX `Task` to execute ACO iterations.
-     * 4. Logs a message indicating the start of the ACO engine with parallel threads active.
-     * 5. Continuously executes ACO iterations by calling the `runIteration` method until the simulation is stopped.
-     * 6. Enforces a short sleep interval between iterations to control execution pace.
+     * Runs iterations on the calling thread until a stop criterion from the configuration
+     * is met or {@link #stop()} is called from another thread. There is no pause between
+     * iterations; callers that want to pace the engine should drive {@link #step()} themselves.
      *
-     * Note: This method is non-blocking and runs the optimization process in a separate thread.
-     * The worker thread is set as a daemon, which means it does not block the JVM from shutting down.
-     * Ensure to stop the simulation using the `stop` method before terminating the main application.
-     */
-    public void start() {
-        if (isRunning) return;
-        isRunning = true;
-        startTime = System.currentTimeMillis();
-
-        Task<Void> task = new Task<>() {
-            @Override
-            protected Void call() throws Exception {
-                log("SYSTEM: Uruchamianie silnika ACO. Wątki równoległe aktywne.");
-                int iteration = 1;
-                while (isRunning) {
-                    runIteration(iteration);
-                    iteration++;
-                    Thread.sleep(20);
-                }
-                return null;
+     * @return the best solution found so far together with run statistics
+     */
+    public SolveResult run() {
+        stopRequested = false;
+        log("SYSTEM: Uruchamianie silnika ACO. Wątki równoległe aktywne.");
+        StopReason reason;
+        while ((reason = evaluateStopCriteria()) == null) {
+            if (stopRequested) {
+                reason = StopReason.STOPPED;
+                break;
             }
-        };
+            step();
+        }
+        if (reason == StopReason.OPTIMAL) {
+            log("SUKCES: Osiągnięto górne ograniczenie " + upperBound + " - rozwiązanie jest optymalne.");
+        }
+        if (profiler != null) log(profiler.report());
+        return new SolveResult(globalBestSolution, iteration, getElapsedTime(), reason);
+    }
 
-        workerThread = new Thread(task);
-        workerThread.setDaemon(true);
-        workerThread.start();
+    /**
+     * Checks the stop criteria of the configuration against the current state, in the order of
+     * {@link StopReason}. A request to {@link #stop()} is not a criterion and is not reported here.
+     *
+     * @return the criterion that is met, or {@code null} if the run should go on
+     */
+    public StopReason evaluateStopCriteria() {
+        int best = globalBestSolution != null ? globalBestSolution.getValue() : 0;
+        if (globalBestSolution != null && stopAtOptimum && best >= upperBound) return StopReason.OPTIMAL;
+        if (globalBestSolution != null && targetValue > 0 && best >= targetValue) return StopReason.TARGET_REACHED;
+        if (iteration > 0 && timeLimitMillis > 0 && getElapsedTime() >= timeLimitMillis) return StopReason.TIME_LIMIT;
+        if (maxIterations > 0 && iteration >= maxIterations) return StopReason.ITERATION_LIMIT;
+        if (maxIterationsWithoutImprovement > 0 && iteration - lastImprovement >= maxIterationsWithoutImprovement) {
+            return StopReason.NO_IMPROVEMENT;
+        }
+        return null;
     }
 
     /**
+     * Executes exactly one iteration synchronously and notifies the listeners.
+     * The engine must be driven by one thread at a time.
      *
+     * @return the metrics of the finished iteration
+     */
+    public SimulationMetrics step() {
+        if (iteration == 0) startTime = System.currentTimeMillis();
+        int next = ++iteration;
+        SimulationMetrics metrics = pool == null
+                ? runIteration(next)
+                : pool.submit(() -> runIteration(next)).join();
+        long start = profiler != null ? System.nanoTime() : 0L;
+        for (EngineListener listener : listeners) {
+            listener.onIteration(metrics);
+        }
+        if (profiler != null) profiler.record(EngineProfiler.Phase.PUBLISHING, start);
+        return metrics;
+    }
+
+    /**
+     * Requests the end of a {@link #run()} in progress. The current iteration is completed first.
      */
     public void stop() {
-        isRunning = false;
+        stopRequested = true;
         log("SYSTEM: Zatrzymano symulację.");
     }
 
+    /**
+     * Releases the worker threads owned by the engine, if any.
+     */
+    @Override
+    public void close() {
+        stopRequested = true;
+        if (pool != null) pool.shutdown();
+    }
+
     /**
      * Computes the elapsed time since the start of the process.
      *
@@ -177,53 +322,198 @@ public class ACOEngine {
      * The method simulates the behavior of a colony of ants to build solutions,
      * evaluates the solutions to determine the iteration's best solution,
      * updates the global best solution if a better one is found, and adjusts
-     * pheromone trails. If stagnation in solution quality is detected, pheromone
-     * levels are reset to encourage new exploration.
+     * pheromone trails. The diversity of the solutions and of the updated trail is then
+     * measured; if the colony has converged without improving for a while, the trail is
+     * smoothed or restarted to encourage new exploration.
+     *
+     * The attractiveness of every item is computed once per iteration, before the ants
+     * are released, and shared read-only by the whole colony. Every ant draws from its own
+     * random stream derived from the run seed, the iteration and the ant index, so the
+     * iteration is reproducible regardless of how the ants are scheduled on the worker threads.
+     * With a candidate list size set, the ants draw from the most attractive items first; the
+     * list is selected again every {@link SolverConfig#getCandidateListRefresh()} iterations
+     * and after every smoothing or restart of the trail.
+     * When local search is enabled, the best constructed solutions are improved before they are
+     * evaluated, so the pheromone update already reinforces the improved solutions.
+     * With profiling enabled, every phase is timed by the {@link EngineProfiler}.
      *
      * @param iteration the current iteration number of the ACO simulation
+     * @return the metrics describing the finished iteration
      */
-    private void runIteration(int iteration) {
+    private SimulationMetrics runIteration(int iteration) {
+        IterationEvent event = new IterationEvent();
+        event.begin();
+        long phaseStart = profiler != null ? System.nanoTime() : 0L;
+        double[] attractiveness = attractivenessTable.update(pheromones, alpha, beta);
+        if (candidateListSize > 0 && (candidates == null || iteration - candidatesSelectedAt >= candidateListRefresh)) {
+            candidates = CandidateList.select(columns, attractiveness, candidateListSize);
+            candidatesSelectedAt = iteration;
+            if (profiler != null) phaseStart = profiler.record(EngineProfiler.Phase.CANDIDATE_LIST, phaseStart);
+        }
+        CandidateList candidateList = candidates;
         List<Solution> solutions = IntStream.range(0, antCount)
                 .parallel()
-                .mapToObj(i -> new Ant(items, pheromones, alpha, beta).buildSolution(capacity))
+                .mapToObj(i -> construct(attractiveness, candidateList, iteration, i))
                 .toList();
+        if (profiler != null) phaseStart = profiler.record(EngineProfiler.Phase.CONSTRUCTION, phaseStart);
+        if (localSearch != null) {
+            solutions = improveBest(solutions);
+            if (profiler != null) phaseStart = profiler.record(EngineProfiler.Phase.LOCAL_SEARCH, phaseStart);
+        }
 
         Solution iterationBest = solutions.stream()
                 .max(Comparator.comparingInt(Solution::getValue))
                 .orElseThrow();
+        double avgValue = solutions.stream().mapToInt(Solution::getValue).average().orElse(0);
 
         boolean improved = false;
         if (globalBestSolution == null || iterationBest.getValue() > globalBestSolution.getValue()) {
+            recordGlobalBest(iterationBest, "iteration");
             globalBestSolution = iterationBest;
             improved = true;
             stagnationCounter = 0;
+            lastImprovement = iteration;
             log("SUKCES: Nowy rekord w iteracji " + iteration + ": " + globalBestSolution.getValue() + " pkt");
         } else {
             stagnationCounter++;
         }
+        if (profiler != null) profiler.record(EngineProfiler.Phase.SELECTION, phaseStart);
 
-        if (stagnationCounter >= MAX_STAGNATION) {
-            log("ALARM: Wykryto stagnację. Resetujemy feromony do poziomu 1.0, żeby wymusić nową eksplorację!");
-            Arrays.fill(pheromones, 1.0);
-            stagnationCounter = 0;
+        updatePheromones(solutions, iterationBest);
+        phaseStart = profiler != null ? System.nanoTime() : 0L;
+        convergence.measure(solutions, pheromones);
+        ConvergenceDetector.Response response = convergence.observe(improved);
+        if (profiler != null) phaseStart = profiler.record(EngineProfiler.Phase.DIVERSITY, phaseStart);
+        if (response != ConvergenceDetector.Response.NONE) {
+            respondToStagnation(response);
+            if (profiler != null) profiler.record(EngineProfiler.Phase.STAGNATION_RESET, phaseStart);
+        }
+
+        int globalBestVal = globalBestSolution.getValue();
+        double gap = gap(globalBestVal);
+        if (event.shouldCommit()) {
+            event.colony = colonyId;
+            event.iteration = iteration;
+            event.ants = antCount;
+            event.iterationBest = iterationBest.getValue();
+            event.average = avgValue;
+            event.globalBest = globalBestVal;
+            event.upperBound = upperBound;
+            event.gap = gap;
+            event.improved = improved;
+            event.diversity = convergence.getDiversity();
+            event.branchingFactor = convergence.getBranchingFactor();
+            event.commit();
+        }
+        return new SimulationMetrics(
+                iteration, avgValue, iterationBest.getValue(),
+                globalBestVal, iterationBest, iterationBest.getWeight(),
+                upperBound, gap, convergence.getDiversity(), convergence.getBranchingFactor()
+        );
+    }
+
+    /**
+     * Smooths the trail towards its mean, or restarts it and reinforces the global best solution,
+     * as the {@link ConvergenceDetector} asked. A strategy that cannot smooth its trail, such as
+     * {@link PopulationPheromoneUpdate}, is restarted instead.
+     */
+    private void respondToStagnation(ConvergenceDetector.Response response) {
+        PheromoneResetEvent reset = new PheromoneResetEvent();
+        reset.begin();
+        boolean smoothed = response == ConvergenceDetector.Response.SMOOTH
+                && pheromoneUpdate.smooth(pheromones, ConvergenceDetector.SMOOTHING_WEIGHT);
+        if (smoothed) {
+            log(String.format("ALARM: Kolonia zbiegła się (różnorodność %.3f, rozgałęzienie %.2f). "
+                            + "Wygładzono feromony w stronę średniej.",
+                    convergence.getDiversity(), convergence.getBranchingFactor()));
+            pheromoneSmoothings++;
         } else {
-            updatePheromones(solutions, iterationBest);
+            log((response == ConvergenceDetector.Response.SMOOTH
+                    ? "ALARM: Kolonia zbiegła się, a strategia feromonów nie pozwala na wygładzanie."
+                    : "ALARM: Wygładzanie nie pomogło.")
+                    + " Restartujemy feromony od najlepszego dotąd rozwiązania!");
+            pheromoneUpdate.initialize(pheromones, evaporationRate);
+            pheromoneUpdate.reinforce(pheromones, globalBestSolution);
+            pheromoneResets++;
         }
+        candidates = null;
+        if (reset.shouldCommit()) {
+            reset.colony = colonyId;
+            reset.iteration = iteration;
+            reset.stagnantIterations = stagnationCounter;
+            reset.response = smoothed ? "smoothing" : "restart";
+            reset.diversity = convergence.getDiversity();
+            reset.branchingFactor = convergence.getBranchingFactor();
+            reset.level = pheromones.get(0);
+            reset.globalBest = globalBestSolution.getValue();
+            reset.commit();
+        }
+        stagnationCounter = 0;
+    }
 
+    private double gap(int value) {
+        return upperBound > 0 ? (double) (upperBound - value) / upperBound : 0.0;
+    }
 
-        double avgValue = solutions.stream().mapToInt(Solution::getValue).average().orElse(0);
-        List<Integer> bestItemIds = iterationBest.getItems().stream().map(Item::getId).toList();
-        double currentBestWeight = iterationBest.getItems().stream().mapToDouble(Item::getWeight).sum();
-        double[] pheromonesCopy = Arrays.copyOf(pheromones, pheromones.length);
+    /**
+     * Emits a {@link GlobalBestEvent} for a solution about to replace the global best one.
+     */
+    private void recordGlobalBest(Solution best, String source) {
+        GlobalBestEvent event = new GlobalBestEvent();
+        if (!event.shouldCommit()) return;
+        event.colony = colonyId;
+        event.iteration = iteration;
+        event.value = best.getValue();
+        event.previousValue = globalBestSolution != null ? globalBestSolution.getValue() : 0;
+        event.weight = best.getWeight();
+        event.gap = gap(best.getValue());
+        event.source = source;
+        event.commit();
+    }
 
-        SimulationMetrics metrics = new SimulationMetrics(
-                iteration, avgValue, iterationBest.getValue(),
-                globalBestSolution.getValue(), bestItemIds, pheromonesCopy, currentBestWeight
-        );
+    /**
+     * Lets the ant of the calling thread build one solution, recording the construction in the
+     * profiler if profiling is enabled.
+     */
+    private Solution construct(double[] attractiveness, CandidateList candidates, int iteration, int index) {
+        Ant ant = ants.get();
+        long antSeed = RandomStreams.forAnt(seed, iteration, index);
+        if (profiler == null) return ant.buildSolution(attractiveness, candidates, capacity, antSeed);
+        long start = System.nanoTime();
+        Solution solution = ant.buildSolution(attractiveness, candidates, capacity, antSeed);
+        profiler.recordAnt(System.nanoTime() - start, ant.examinedCount(), ant.rejectedCount());
+        return solution;
+    }
+
+    /**
+     * Applies the local search to the best distinct solutions of the iteration in parallel.
+     * All searches share one deadline, so the stage as a whole stays within the configured budget.
+     *
+     * @param solutions the constructed solutions
+     * @return the solutions with the improved ones in place of their originals
+     */
+    private List<Solution> improveBest(List<Solution> solutions) {
+        int[] byValue = IntStream.range(0, solutions.size()).boxed()
+                .sorted((a, b) -> Integer.compare(solutions.get(b).getValue(), solutions.get(a).getValue()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] chosen = new int[Math.min(localSearchCount, byValue.length)];
+        Set<Solution> distinct = new HashSet<>();
+        int count = 0;
+        for (int k = 0; k < byValue.length && count < chosen.length; k++) {
+            if (distinct.add(solutions.get(byValue[k]))) chosen[count++] = byValue[k];
+        }
 
-        if (onIterationFinished != null) {
-            Platform.runLater(() -> onIterationFinished.accept(metrics));
+        long deadline = localSearchBudgetNanos > 0 ? System.nanoTime() + localSearchBudgetNanos : Long.MAX_VALUE;
+        Solution[] improved = new Solution[count];
+        IntStream.range(0, count).parallel()
+                .forEach(k -> improved[k] = localSearch.improve(solutions.get(chosen[k]), deadline));
+
+        List<Solution> result = new ArrayList<>(solutions);
+        for (int k = 0; k < count; k++) {
+            result.set(chosen[k], improved[k]);
         }
+        return result;
     }
 
     /**
@@ -235,33 +525,117 @@ public class ACOEngine {
      * - Pheromones are increased based on the quality of the solutions provided.
      * - Limits are enforced to constrain pheromone values within a predefined range.
      *
+     * The update itself is delegated to the {@link PheromoneUpdateStrategy} of the configuration,
+     * {@link ClassicPheromoneUpdate} by default, which evaporates lazily and deposits in parallel
+     * over disjoint item ranges, see {@link PheromoneTrail}.
+     *
      * @param solutions      the list of solutions generated by the ants during the current iteration.
      *                        Each solution contributes to pheromone updates based on its quality.
      * @param iterationBest  the best solution found in the current iteration. This solution has
      *                        a greater influence on the pheromone matrix than other solutions.
      */
-    private void updatePheromones(List<Solution> solutions, Solution iterationBest) {
-        for (int i = 0; i < pheromones.length; i++) {
-            pheromones[i] *= (1.0 - evaporationRate);
-            if (pheromones[i] < 0.05) pheromones[i] = 0.05;
-            if (pheromones[i] > 100.0) pheromones[i] = 100.0;
-        }
+    void updatePheromones(List<Solution> solutions, Solution iterationBest) {
+        long start = profiler != null ? System.nanoTime() : 0L;
+        pheromoneUpdate.update(pheromones, solutions, iterationBest, globalBestSolution, evaporationRate);
+        if (profiler != null) profiler.record(EngineProfiler.Phase.PHEROMONE_UPDATE, start);
+    }
 
-        for (Solution s : solutions) {
-            double reward = (double) s.getValue() / 2000.0;
-            for (Item item : s.getItems()) {
-                pheromones[item.getId()] += reward;
-            }
+    /**
+     * Accepts a solution migrated from another colony.
+     *
+     * The immigrant replaces the global best solution if it is better, and its items are
+     * reinforced by the {@link PheromoneUpdateStrategy} (classically with the same reward as the
+     * elite deposit), so the colony is pulled towards
+     * the region the other colony has found. Must not be called while {@link #step()} runs.
+     *
+     * @param immigrant the migrated solution, built for the same instance; ignored if {@code null}
+     */
+    public void acceptImmigrant(Solution immigrant) {
+        inject(immigrant, "migration", "MIGRACJA: Przejęto lepsze rozwiązanie z innej kolonii: ");
+    }
+
+    /**
+     * Starts the search from a known solution, for example one produced by a heuristic.
+     * The solution is treated like an immigrant: it becomes the global best solution if it is
+     * better and its items are reinforced. Must not be called while {@link #step()} runs.
+     *
+     * @param seed a solution built for the same instance; ignored if {@code null}
+     */
+    public void seedSolution(Solution seed) {
+        inject(seed, "seed", "SYSTEM: Rozwiązanie startowe: ");
+    }
+
+    private void inject(Solution solution, String source, String message) {
+        if (solution == null) return;
+        if (globalBestSolution == null || solution.getValue() > globalBestSolution.getValue()) {
+            recordGlobalBest(solution, source);
+            globalBestSolution = solution;
+            stagnationCounter = 0;
+            convergence.reset();
+            lastImprovement = iteration;
+            log(message + solution.getValue() + " pkt");
         }
+        pheromoneUpdate.reinforce(pheromones, solution);
+    }
 
-        if (globalBestSolution != null) {
-            double eliteReward = (double) globalBestSolution.getValue() / 1000.0;
-            for (Item item : globalBestSolution.getItems()) {
-                pheromones[item.getId()] += eliteReward;
-            }
+    /**
+     * Copies the current pheromone levels into the given array.
+     *
+     * @param target an array with one entry per item
+     */
+    public void copyPheromones(double[] target) {
+        pheromones.copyTo(target);
+    }
+
+    /**
+     * Moves the pheromone levels towards another trail: {@code tau = (1 - weight) * tau + weight * source}.
+     * Must not be called while {@link #step()} runs.
+     *
+     * @param source the trail to blend in, with one entry per item
+     * @param weight the share of the source trail, in {@code [0, 1]}
+     * @throws IllegalStateException if the pheromone update does not support blending, see
+     *                               {@link #supportsPheromoneBlending()}
+     */
+    public void blendPheromones(double[] source, double weight) {
+        if (!pheromoneUpdate.supportsBlending()) {
+            throw new IllegalStateException("The pheromone update strategy does not support blending");
         }
+        pheromones.blend(source, weight);
+    }
+
+    /**
+     * @return whether {@link #blendPheromones} may be called, which depends on the pheromone update strategy
+     */
+    public boolean supportsPheromoneBlending() {
+        return pheromoneUpdate.supportsBlending();
     }
 
+    /**
+     * @return the number of iterations performed since the last reset
+     */
+    public int getIteration() { return iteration; }
+
+    /**
+     * @return the number of iterations since the global best solution last improved or the pheromones were
+     *         smoothed or restarted
+     */
+    public int getStagnationCounter() { return stagnationCounter; }
+
+    /**
+     * @return the number of pheromone restarts triggered by stagnation since the last reset of the engine
+     */
+    public int getPheromoneResets() { return pheromoneResets; }
+
+    /**
+     * @return the number of times the pheromones were smoothed towards their mean since the last reset of the engine
+     */
+    public int getPheromoneSmoothings() { return pheromoneSmoothings; }
+
+    /**
+     * @return the number of ants released in every iteration
+     */
+    public int getAntCount() { return antCount; }
+
     /**
      * Retrieves the current global best solution found by the Ant Colony Optimization (ACO) engine.
      *
@@ -278,4 +652,25 @@ public class ACOEngine {
      * @return the maximum capacity of the knapsack for which the optimization process is performed.
      */
     public int getCapacity() { return capacity; }
+
+    /**
+     * @return the number of items of the instance, which is also the length of the pheromone trail
+     */
+    public int getItemCount() { return pheromones.size(); }
+
+    /**
+     * @return an upper bound on the optimal value of the instance
+     */
+    public long getUpperBound() { return upperBound; }
+
+    /**
+     * @return the per-phase timings of this engine, or {@code null} if profiling is disabled in its configuration
+     */
+    public EngineProfiler getProfiler() { return profiler; }
+
+    /**
+     * @return the id of this engine, unique within the process, used to tell colonies apart in
+     *         Flight Recorder events
+     */
+    public int getColonyId() { return colonyId; }
 }
\ No newline at end of file
@@ -1,30 +1,44 @@
 package pl.antpack.core;
 
-import pl.antpack.model.Item;
-import pl.antpack.model.Knapsack;
-
-import java.util.*;
+import pl.antpack.model.ItemColumns;
 
 /**
  * Represents an ant in the Ant Colony Optimization algorithm for solving the knapsack problem.
  * The ant selects items to maximize the total value of the knapsack while staying within the
  * knapsack's capacity. The selection process combines probabilistic influences of pheromone
  * levels and heuristic information (e.g., value-to-weight ratio).
+ *
+ * An ant owns its scratch buffers and is meant to be reused by a single thread for many
+ * constructions, so building a solution does not allocate anything until the result bitset is created.
+ * With a {@link CandidateList}, the ant draws from the candidates first and only falls back to
+ * the rest of the feasible items once no candidate fits any more.
  */
 public class Ant {
 
-    private final List<Item> availableItems;
-    private final double[] pheromones;
-    private final double alpha;
-    private final double beta;
+    private final int[] weights;
+    private final int[] values;
+    private final int[] heavyFirst;
 
-    private final List<Item> selectedItems = new ArrayList<>();
+    private final SelectionTree wheel;
+    private final boolean[] alive;
+    private final int[] selected;
+    private final RandomStreams random = new RandomStreams(0);
+    private int examinedCount;
+    private int rejectedCount;
 
-    public Ant(List<Item> availableItems, double[] pheromones, double alpha, double beta) {
-        this.availableItems = availableItems;
-        this.pheromones = pheromones;
-        this.alpha = alpha;
-        this.beta = beta;
+    /**
+     * Creates an ant working on the given items.
+     *
+     * @param items      the columnar item data
+     * @param heavyFirst the item indices ordered by decreasing weight, see {@link ItemOrder#byWeightDescending}
+     */
+    public Ant(ItemColumns items, int[] heavyFirst) {
+        this.weights = items.weights();
+        this.values = items.values();
+        this.heavyFirst = heavyFirst;
+        this.wheel = new SelectionTree(items.size());
+        this.alive = new boolean[items.size()];
+        this.selected = new int[items.size()];
     }
 
     /**
@@ -36,79 +50,233 @@ public class Ant {
      * process continues until the knapsack reaches its capacity or no more suitable candidates
      * are available.
      *
-     * @param capacity the capacity of the knapsack to be filled
+     * The roulette wheel is a {@link SelectionTree}, so every pick and every removal costs
+     * O(log n). Items that no longer fit are pruned in bulk by walking the heavy-first order
+     * with a cursor that only moves forward as the remaining capacity shrinks, which makes
+     * one construction O(n log n) overall.
+     *
+     * @param attractiveness the selection weight {@code tau^alpha * eta^beta} of every item,
+     *                       precomputed for the current iteration and shared by all ants
+     * @param capacity       the capacity of the knapsack to be filled
+     * @param seed           the seed of this ant's random stream, see {@link RandomStreams#forAnt};
+     *                       the same seed and inputs always produce the same solution
      * @return a {@code Solution} containing the selected items and the total value
      */
-    public Solution buildSolution(int capacity) {
-        Knapsack knapsack = new Knapsack(capacity);
-        selectedItems.clear();
+    public Solution buildSolution(double[] attractiveness, int capacity, long seed) {
+        return buildSolution(attractiveness, null, capacity, seed);
+    }
 
-        List<Integer> remaining = new ArrayList<>();
-        for (int i = 0; i < availableItems.size(); i++) {
-            remaining.add(i);
+    /**
+     * Builds a solution like {@link #buildSolution(double[], int, long)}, drawing from a candidate
+     * list first.
+     *
+     * While some candidate fits, the wheel only holds the candidates, so the setup costs O(k) and
+     * every pick O(log k) instead of O(n) and O(log n). When the candidates run out, the ant falls
+     * back to every other item that still fits. Those are the lightest items, a suffix of the
+     * heavy-first order found by binary search, so the fallback only costs time proportional to
+     * the number of items lighter than the remaining capacity.
+     *
+     * @param attractiveness the selection weight of every item for the current iteration
+     * @param candidates     the candidate list of the iteration, or {@code null} to draw from all items
+     * @param capacity       the capacity of the knapsack to be filled
+     * @param seed           the seed of this ant's random stream, see {@link RandomStreams#forAnt}
+     * @return a {@code Solution} containing the selected items and the total value
+     */
+    Solution buildSolution(double[] attractiveness, CandidateList candidates, int capacity, long seed) {
+        if (candidates != null) return buildFromCandidates(attractiveness, candidates, capacity, seed);
+        int liveCount = 0;
+        for (int i = 0; i < weights.length; i++) {
+            boolean fits = weights[i] <= capacity;
+            if (fits) liveCount++;
+            alive[i] = fits;
+            wheel.setLeaf(i, fits ? attractiveness[i] : 0.0);
         }
+        wheel.rebuild();
+        int initialLiveCount = liveCount;
 
-        Random r = new Random();
+        RandomStreams r = random;
+        r.reseed(seed);
+        int remainingCapacity = capacity;
+        int heavyCursor = 0;
+        int selectedCount = 0;
+        int value = 0;
 
-        while (!remaining.isEmpty()) {
-            List<Integer> candidates = new ArrayList<>();
-            for (Integer idx : remaining) {
-                if (knapsack.canAdd(availableItems.get(idx))) {
-                    candidates.add(idx);
+        while (true) {
+            while (heavyCursor < heavyFirst.length && weights[heavyFirst[heavyCursor]] > remainingCapacity) {
+                int idx = heavyFirst[heavyCursor++];
+                if (alive[idx]) {
+                    alive[idx] = false;
+                    wheel.remove(idx);
+                    liveCount--;
                 }
             }
 
-            if (candidates.isEmpty()) {
+            if (liveCount == 0) {
                 break;
             }
 
-            double sum = 0;
-            double[] probabilities = new double[candidates.size()];
+            double sum = wheel.total();
+            int actualItemIndex;
+            if (sum > 0) {
+                actualItemIndex = wheel.sample(r.nextDouble() * sum);
+            } else {
+                actualItemIndex = pickUniform(r.nextInt(liveCount), alive.length);
+            }
 
-            for (int i = 0; i < candidates.size(); i++) {
-                int idx = candidates.get(i);
-                Item item = availableItems.get(idx);
+            alive[actualItemIndex] = false;
+            wheel.remove(actualItemIndex);
+            liveCount--;
 
-                double tau = pheromones[idx];
-                double eta = (double) item.getValue() / item.getWeight();
+            selected[selectedCount++] = actualItemIndex;
+            remainingCapacity -= weights[actualItemIndex];
+            value += values[actualItemIndex];
+        }
 
-                if (tau <= 0) tau = 0.0001;
+        examinedCount = heavyCursor + selectedCount;
+        rejectedCount = initialLiveCount - selectedCount;
+        return toSolution(selectedCount, value, capacity - remainingCapacity);
+    }
 
-                double p = Math.pow(tau, alpha) * Math.pow(eta, beta);
-                probabilities[i] = p;
-                sum += p;
-            }
+    /**
+     * The two phases of {@link #buildSolution(double[], CandidateList, int, long)}. Both keep the
+     * wheel restricted to a prefix of its leaves: the candidates by their heavy-first position,
+     * then the remaining feasible items by their position counted from the lightest item.
+     */
+    private Solution buildFromCandidates(double[] attractiveness, CandidateList candidates, int capacity, long seed) {
+        RandomStreams r = random;
+        r.reseed(seed);
+        int[] list = candidates.items();
+        int k = list.length;
+        int n = heavyFirst.length;
 
-            int selectedIdxInCandidates = -1;
+        int liveCount = 0;
+        for (int p = 0; p < k; p++) {
+            boolean fits = weights[list[p]] <= capacity;
+            if (fits) liveCount++;
+            alive[p] = fits;
+            wheel.setLeaf(p, fits ? attractiveness[list[p]] : 0.0);
+        }
+        wheel.rebuild(k);
 
-            if (sum == 0) {
-                selectedIdxInCandidates = r.nextInt(candidates.size());
-            } else {
-                double pick = r.nextDouble() * sum;
-                double current = 0;
-                for (int i = 0; i < probabilities.length; i++) {
-                    current += probabilities[i];
-                    if (current >= pick) {
-                        selectedIdxInCandidates = i;
-                        break;
-                    }
+        int remainingCapacity = capacity;
+        int cursor = 0;
+        int selectedCount = 0;
+        int value = 0;
+        int examined = 0;
+        int rejected = 0;
+        while (true) {
+            while (cursor < k && weights[list[cursor]] > remainingCapacity) {
+                if (alive[cursor]) {
+                    alive[cursor] = false;
+                    wheel.remove(cursor);
+                    liveCount--;
+                    rejected++;
                 }
+                cursor++;
             }
+            if (liveCount == 0) break;
+            double sum = wheel.total();
+            int p = sum > 0 ? wheel.sample(r.nextDouble() * sum) : pickUniform(r.nextInt(liveCount), k);
+            alive[p] = false;
+            wheel.remove(p);
+            liveCount--;
+            selected[selectedCount++] = list[p];
+            remainingCapacity -= weights[list[p]];
+            value += values[list[p]];
+        }
+        examined += cursor;
 
-            if (selectedIdxInCandidates == -1) {
-                selectedIdxInCandidates = candidates.size() - 1;
+        // Fallback: the items lighter than the remaining capacity are the last `light` ones of
+        // the heavy-first order; position q on the wheel is heavyFirst[n - 1 - q].
+        int light = n - firstFitting(remainingCapacity);
+        liveCount = 0;
+        for (int q = 0; q < light; q++) {
+            int id = heavyFirst[n - 1 - q];
+            boolean live = !candidates.contains(id);
+            if (live) liveCount++;
+            alive[q] = live;
+            wheel.setLeaf(q, live ? attractiveness[id] : 0.0);
+        }
+        wheel.rebuild(light);
+        int lightCursor = light - 1;
+        while (true) {
+            while (lightCursor >= 0 && weights[heavyFirst[n - 1 - lightCursor]] > remainingCapacity) {
+                if (alive[lightCursor]) {
+                    alive[lightCursor] = false;
+                    wheel.remove(lightCursor);
+                    liveCount--;
+                    rejected++;
+                }
+                lightCursor--;
+                examined++;
             }
+            if (liveCount == 0) break;
+            double sum = wheel.total();
+            int q = sum > 0 ? wheel.sample(r.nextDouble() * sum) : pickUniform(r.nextInt(liveCount), light);
+            alive[q] = false;
+            wheel.remove(q);
+            liveCount--;
+            int id = heavyFirst[n - 1 - q];
+            selected[selectedCount++] = id;
+            remainingCapacity -= weights[id];
+            value += values[id];
+        }
 
-            Integer actualItemIndex = candidates.get(selectedIdxInCandidates);
-            Item itemToAdd = availableItems.get(actualItemIndex);
+        examinedCount = examined + selectedCount;
+        rejectedCount = rejected;
+        return toSolution(selectedCount, value, capacity - remainingCapacity);
+    }
 
-            knapsack.add(itemToAdd);
-            selectedItems.add(itemToAdd);
+    /**
+     * @return the first position in the heavy-first order whose item weighs at most {@code capacity}
+     */
+    private int firstFitting(int capacity) {
+        int lo = 0;
+        int hi = heavyFirst.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (weights[heavyFirst[mid]] > capacity) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
 
-            remaining.remove(actualItemIndex);
+    private Solution toSolution(int selectedCount, int value, int weight) {
+        long[] words = new long[Solution.wordCount(weights.length)];
+        for (int i = 0; i < selectedCount; i++) {
+            int idx = selected[i];
+            words[idx >>> 6] |= 1L << idx;
         }
+        return new Solution(words, value, weight);
+    }
 
-        int value = selectedItems.stream().mapToInt(Item::getValue).sum();
-        return new Solution(selectedItems, value);
+    /**
+     * @return the number of items the last construction drew from the wheel or checked while
+     *         pruning the items that no longer fit
+     */
+    public int examinedCount() {
+        return examinedCount;
+    }
+
+    /**
+     * @return the number of items that fitted the empty knapsack but were pruned during the last
+     *         construction because they no longer fitted
+     */
+    public int rejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Fallback used when every live candidate has zero attractiveness: returns the
+     * {@code k}-th live position among the first {@code size}, which gives a uniform choice
+     * among the feasible items.
+     */
+    private int pickUniform(int k, int size) {
+        for (int i = 0; i < size; i++) {
+            if (alive[i] && k-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No live candidate left");
     }
 }
@@ -0,0 +1,153 @@
+package pl.antpack.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The classic Ant System update rules with rewards scaled to the instance.
+ *
+ * A solution of value {@code f} deposits {@code f / UB}, where {@code UB} is the upper bound of
+ * the instance, so the reward of a good solution is close to 1 whatever the scale of the item
+ * values. The trail starts at {@code 1 / rho}, the level at which an item reinforced by one such
+ * solution per iteration stays, and changes with the evaporation rate instead of saturating at
+ * fixed clamps. The {@link Variant}s differ in which solutions deposit:
+ * <ul>
+ *   <li>{@link Variant#ANT_SYSTEM}: every ant,</li>
+ *   <li>{@link Variant#ELITIST}: every ant, and the global best solution with the weight of the whole colony,</li>
+ *   <li>{@link Variant#RANK_BASED}: the {@code w - 1} best ants with weights {@code w - 1} down to 1 and
+ *       the global best solution with weight {@code w},</li>
+ *   <li>{@link Variant#MAX_MIN}: only the iteration best solution, or the global best one every
+ *       {@value #MAX_MIN_GLOBAL_BEST_PERIOD}th update, within the bounds below.</li>
+ * </ul>
+ * MAX-MIN keeps every entry within {@code [tauMin, tauMax]}, derived after every update from the
+ * global best value and the evaporation rate as in Stützle and Hoos: {@code tauMax = (f_best / UB) / rho}
+ * and {@code tauMin = tauMax (1 - p^(1/n)) / ((n/2 - 1) p^(1/n))}, where {@code n} is the number of
+ * items and {@code p = } {@value #MAX_MIN_P_BEST} the probability of rebuilding the best solution
+ * once the search has converged. The other variants have no bounds; their floor of {@code 1e-4}
+ * of the initial level only lets decayed entries come to rest, see {@link PheromoneTrail}.
+ */
+public class AntSystemPheromoneUpdate implements PheromoneUpdateStrategy {
+
+    /**
+     * Which solutions deposit pheromone.
+     */
+    public enum Variant { ANT_SYSTEM, ELITIST, RANK_BASED, MAX_MIN }
+
+    /** Number of ranks {@code w} of {@link Variant#RANK_BASED}. */
+    public static final int RANKS = 6;
+    /** {@link Variant#MAX_MIN} deposits the global best instead of the iteration best every this many updates. */
+    public static final int MAX_MIN_GLOBAL_BEST_PERIOD = 10;
+    /** Probability of rebuilding the best solution at convergence, which sets the ratio of the MAX-MIN bounds. */
+    public static final double MAX_MIN_P_BEST = 0.05;
+
+    private static final double FLOOR_RATIO = 1e-4;
+    /** Evaporation rates below this are treated as this rate when deriving levels, which divide by it. */
+    private static final double MIN_RATE = 1e-3;
+
+    private final Variant variant;
+    private final int itemCount;
+    private final double upperBound;
+    private int updates;
+
+    /**
+     * @param variant    which solutions deposit pheromone
+     * @param itemCount  the number of items of the instance
+     * @param upperBound an upper bound on the optimal value of the instance, the scale of the rewards
+     */
+    public AntSystemPheromoneUpdate(Variant variant, int itemCount, long upperBound) {
+        if (variant == null) throw new IllegalArgumentException("variant must not be null");
+        this.variant = variant;
+        this.itemCount = itemCount;
+        this.upperBound = Math.max(1, upperBound);
+    }
+
+    /**
+     * @return a factory creating the update for every engine
+     */
+    public static Factory factory(Variant variant) {
+        return (items, capacity, upperBound) -> new AntSystemPheromoneUpdate(variant, items.size(), upperBound);
+    }
+
+    @Override
+    public void initialize(PheromoneTrail trail, double evaporationRate) {
+        updates = 0;
+        double initial = 1.0 / Math.max(evaporationRate, MIN_RATE);
+        trail.setEvaporationRate(evaporationRate);
+        if (variant == Variant.MAX_MIN) {
+            trail.setBounds(minForMax(initial), initial);
+        } else {
+            trail.setBounds(initial * FLOOR_RATIO, Double.MAX_VALUE);
+        }
+        trail.fill(initial);
+    }
+
+    @Override
+    public void update(PheromoneTrail trail, List<Solution> solutions, Solution iterationBest, Solution globalBest,
+                       double evaporationRate) {
+        updates++;
+        trail.setEvaporationRate(evaporationRate);
+        if (variant == Variant.MAX_MIN) {
+            double max = reward(globalBest) / Math.max(evaporationRate, MIN_RATE);
+            trail.setBounds(minForMax(max), max);
+        }
+        trail.evaporate();
+
+        int m = solutions.size();
+        List<Solution> deposited;
+        double[] rewards;
+        switch (variant) {
+            case ANT_SYSTEM -> {
+                deposited = solutions;
+                rewards = new double[m];
+                Arrays.fill(rewards, 1.0);
+            }
+            case ELITIST -> {
+                deposited = new ArrayList<>(solutions);
+                deposited.add(globalBest);
+                rewards = new double[m + 1];
+                Arrays.fill(rewards, 1.0);
+                rewards[m] = m;
+            }
+            case RANK_BASED -> {
+                deposited = new ArrayList<>(solutions.stream()
+                        .sorted(Comparator.comparingInt(Solution::getValue).reversed())
+                        .limit(RANKS - 1)
+                        .toList());
+                deposited.add(globalBest);
+                rewards = new double[deposited.size()];
+                for (int r = 0; r < rewards.length - 1; r++) rewards[r] = RANKS - 1 - r;
+                rewards[rewards.length - 1] = RANKS;
+            }
+            default -> {
+                deposited = List.of(updates % MAX_MIN_GLOBAL_BEST_PERIOD == 0 ? globalBest : iterationBest);
+                rewards = new double[] {1.0};
+            }
+        }
+        for (int k = 0; k < rewards.length; k++) rewards[k] *= reward(deposited.get(k));
+        trail.deposit(deposited, rewards, variant == Variant.MAX_MIN);
+    }
+
+    /**
+     * Deposits the reward of the solution, as if it were the best solution of an iteration.
+     */
+    @Override
+    public void reinforce(PheromoneTrail trail, Solution solution) {
+        trail.deposit(List.of(solution), new double[] {reward(solution)}, variant == Variant.MAX_MIN);
+    }
+
+    private double reward(Solution solution) {
+        return solution.getValue() / upperBound;
+    }
+
+    /**
+     * @return the MAX-MIN lower bound belonging to the upper bound {@code max}
+     */
+    private double minForMax(double max) {
+        double n = Math.max(itemCount, 4);
+        double exponent = Math.log(MAX_MIN_P_BEST) / n;
+        double min = max * -Math.expm1(exponent) / ((n / 2 - 1) * Math.exp(exponent));
+        return Math.min(min, max);
+    }
+}
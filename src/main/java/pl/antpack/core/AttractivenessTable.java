@@ -0,0 +1,89 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+import java.util.stream.IntStream;
+
+/**
+ * Holds the selection weight {@code tau^alpha * eta^beta} of every item for the current iteration.
+ *
+ * The table is rebuilt once per iteration by the engine and then shared read-only by all ants,
+ * which keeps {@code Math.pow} out of the construction loop. The heuristic part
+ * {@code eta^beta} with {@code eta = value / weight} only depends on the instance and on
+ * {@code beta}, so it is cached and recomputed only when {@code beta} changes. While {@code alpha}
+ * and {@code beta} stay the same, only the items whose pheromone changed since the previous update
+ * are recomputed, see {@link PheromoneTrail#forEachChanged}.
+ */
+final class AttractivenessTable {
+
+    private static final int CHUNK = 4096;
+
+    private final double[] eta;
+    private final double[] etaPow;
+    private final double[] attractiveness;
+    private double cachedBeta = Double.NaN;
+    private double cachedAlpha = Double.NaN;
+
+    AttractivenessTable(ItemColumns items) {
+        int n = items.size();
+        this.eta = new double[n];
+        this.etaPow = new double[n];
+        this.attractiveness = new double[n];
+        for (int i = 0; i < n; i++) {
+            eta[i] = (double) items.value(i) / items.weight(i);
+        }
+    }
+
+    /**
+     * Recomputes the attractiveness of the items whose pheromone changed, or of every item if
+     * {@code alpha} or {@code beta} changed, in parallel chunks.
+     *
+     * @param trail      the pheromone trail; its changed entries are consumed
+     * @param alpha      the importance factor of pheromone trails
+     * @param beta       the importance factor of heuristic information
+     * @return the shared attractiveness array; it must be treated as read-only
+     */
+    double[] update(PheromoneTrail trail, double alpha, double beta) {
+        int n = attractiveness.length;
+        int chunks = (n + CHUNK - 1) / CHUNK;
+
+        if (Double.compare(beta, cachedBeta) != 0) {
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int end = Math.min(n, (c + 1) * CHUNK);
+                for (int i = c * CHUNK; i < end; i++) {
+                    etaPow[i] = pow(eta[i], beta);
+                }
+            });
+            cachedBeta = beta;
+            trail.markAllChanged();
+        }
+        if (Double.compare(alpha, cachedAlpha) != 0) {
+            cachedAlpha = alpha;
+            trail.markAllChanged();
+        }
+
+        trail.forEachChanged(i -> {
+            double tau = trail.get(i);
+            if (tau <= 0) tau = 0.0001;
+            attractiveness[i] = pow(tau, alpha) * etaPow[i];
+        });
+        return attractiveness;
+    }
+
+    /**
+     * {@code Math.pow} with shortcuts for the exponents most often set from the UI sliders.
+     * The shortcuts give the same results as {@code Math.pow} up to the last ulp.
+     */
+    static double pow(double x, double exponent) {
+        if (exponent == 1.0) return x;
+        if (exponent == 2.0) return x * x;
+        if (exponent == 0.0) return 1.0;
+        if (exponent == 3.0) return x * x * x;
+        if (exponent == 0.5) return Math.sqrt(x);
+        if (exponent == 4.0) {
+            double sq = x * x;
+            return sq * sq;
+        }
+        return Math.pow(x, exponent);
+    }
+}
@@ -0,0 +1,57 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ProblemInstance;
+
+/**
+ * Front door that picks the solving method from the estimated cost of the instance.
+ *
+ * Instances whose exact DP stays within {@link #DEFAULT_EXACT_BUDGET} cell updates are solved
+ * to optimality by the {@link ExactSolver}. Larger instances are solved by an {@link ACOEngine},
+ * seeded with the exact solution of a scaled-down copy of the instance
+ * (see {@link ExactSolver#approximate}), so the colony starts from a good solution instead of from scratch.
+ */
+public final class AutoSolver {
+
+    /** The largest DP, in cell updates, that is solved exactly; a few seconds on a desktop machine. */
+    public static final long DEFAULT_EXACT_BUDGET = 1L << 31;
+
+    /** The size, in cell updates, of the scaled-down DP that seeds the colony. */
+    public static final long DEFAULT_SEED_BUDGET = 1L << 27;
+
+    private AutoSolver() {}
+
+    /**
+     * @return {@code true} if the instance is cheap enough to be solved exactly
+     */
+    public static boolean prefersExact(ProblemInstance instance) {
+        return ExactSolver.isFeasible(instance) && ExactSolver.estimateCost(instance) <= DEFAULT_EXACT_BUDGET;
+    }
+
+    /**
+     * @return a feasible starting solution from the scaled-down DP
+     */
+    public static Solution seed(ProblemInstance instance) {
+        return ExactSolver.approximate(instance, DEFAULT_SEED_BUDGET);
+    }
+
+    /**
+     * Solves the instance exactly if that is cheap enough, otherwise with a seeded colony.
+     *
+     * @param instance the problem to solve
+     * @param config   the colony parameters, used when the instance is too large for the exact solver
+     * @return the best solution found; exact solutions are reported with {@link StopReason#OPTIMAL}
+     */
+    public static SolveResult solve(ProblemInstance instance, SolverConfig config) {
+        long start = System.currentTimeMillis();
+        if (prefersExact(instance)) {
+            Solution optimum = ExactSolver.solve(instance);
+            return new SolveResult(optimum, 0, System.currentTimeMillis() - start, StopReason.OPTIMAL);
+        }
+        try (ACOEngine engine = new ACOEngine(instance, config)) {
+            engine.seedSolution(seed(instance));
+            SolveResult result = engine.run();
+            return new SolveResult(result.best(), result.iterations(),
+                    System.currentTimeMillis() - start, result.stopReason());
+        }
+    }
+}
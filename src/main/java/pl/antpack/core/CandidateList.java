@@ -0,0 +1,157 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code k} most attractive items of an iteration, which the ants draw from before they
+ * consider the rest of the instance.
+ *
+ * On large instances most of the probability mass of the roulette wheel sits on a small set of
+ * efficient items with a strong trail, so drawing from them alone is nearly as good and much
+ * cheaper, as with the candidate lists of ACO for the TSP. The list is selected by
+ * attractiveness {@code tau^alpha * eta^beta}, which combines the pheromone and
+ * {@code value / weight}, and is kept in decreasing weight order so that an ant can prune the
+ * candidates that no longer fit with a forward cursor, see {@link Ant#buildSolution}.
+ *
+ * Selection keeps a bounded heap of the best items per chunk of the instance in parallel and
+ * merges the chunks, in O(n log k). Ties are broken by the item index, so the list does not
+ * depend on the number of workers. A list is immutable and shared read-only by all ants.
+ */
+final class CandidateList {
+
+    private static final int CHUNK = 4096;
+
+    private final int[] items;
+    private final long[] members;
+
+    private CandidateList(int[] items, int itemCount) {
+        this.items = items;
+        this.members = new long[Solution.wordCount(itemCount)];
+        for (int id : items) members[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * Selects the most attractive items.
+     *
+     * @param items          the items of the instance
+     * @param attractiveness the selection weight of every item for the current iteration
+     * @param size           the number of candidates; all items are taken if there are fewer
+     * @return the candidates, heaviest first
+     */
+    static CandidateList select(ItemColumns items, double[] attractiveness, int size) {
+        int n = attractiveness.length;
+        int k = Math.min(size, n);
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        int[][] best = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> top(attractiveness, c * CHUNK, Math.min(n, (c + 1) * CHUNK), k))
+                .toArray(int[][]::new);
+        int[] merged = best.length == 1 ? best[0] : mergeTop(attractiveness, best, k);
+
+        long[] keys = new long[merged.length];
+        for (int i = 0; i < merged.length; i++) {
+            keys[i] = ((long) -items.weight(merged[i]) << 32) | merged[i];
+        }
+        Arrays.sort(keys);
+        int[] heavyFirst = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) heavyFirst[i] = (int) keys[i];
+        return new CandidateList(heavyFirst, n);
+    }
+
+    /**
+     * @return the candidate item indices, ordered from the heaviest to the lightest; must be treated as read-only
+     */
+    int[] items() {
+        return items;
+    }
+
+    /**
+     * @return the number of candidates
+     */
+    int size() {
+        return items.length;
+    }
+
+    /**
+     * @return whether the item is a candidate
+     */
+    boolean contains(int item) {
+        return (members[item >>> 6] & (1L << item)) != 0;
+    }
+
+    private static int[] mergeTop(double[] attractiveness, int[][] best, int k) {
+        int total = 0;
+        for (int[] chunk : best) total += chunk.length;
+        int[] all = new int[total];
+        int at = 0;
+        for (int[] chunk : best) {
+            System.arraycopy(chunk, 0, all, at, chunk.length);
+            at += chunk.length;
+        }
+        return top(attractiveness, all, k);
+    }
+
+    private static int[] top(double[] attractiveness, int from, int to, int k) {
+        int[] ids = new int[to - from];
+        for (int i = from; i < to; i++) ids[i - from] = i;
+        return top(attractiveness, ids, k);
+    }
+
+    /**
+     * Keeps the {@code k} best of the given items in a binary min-heap whose root is the worst
+     * item kept so far.
+     */
+    private static int[] top(double[] attractiveness, int[] ids, int k) {
+        if (ids.length <= k) return ids;
+        int[] heap = new int[k];
+        int size = 0;
+        for (int id : ids) {
+            if (size < k) {
+                heap[size] = id;
+                siftUp(attractiveness, heap, size++);
+            } else if (better(attractiveness, id, heap[0])) {
+                heap[0] = id;
+                siftDown(attractiveness, heap, k);
+            }
+        }
+        return heap;
+    }
+
+    private static void siftUp(double[] attractiveness, int[] heap, int at) {
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (!better(attractiveness, heap[parent], heap[at])) break;
+            swap(heap, parent, at);
+            at = parent;
+        }
+    }
+
+    private static void siftDown(double[] attractiveness, int[] heap, int size) {
+        int at = 0;
+        while (true) {
+            int worst = at;
+            int left = 2 * at + 1;
+            if (left < size && better(attractiveness, heap[worst], heap[left])) worst = left;
+            if (left + 1 < size && better(attractiveness, heap[worst], heap[left + 1])) worst = left + 1;
+            if (worst == at) return;
+            swap(heap, at, worst);
+            at = worst;
+        }
+    }
+
+    /**
+     * The total order of the selection: higher attractiveness first, then lower index.
+     */
+    private static boolean better(double[] attractiveness, int a, int b) {
+        int order = Double.compare(attractiveness[a], attractiveness[b]);
+        return order > 0 || (order == 0 && a < b);
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+}
@@ -0,0 +1,46 @@
+package pl.antpack.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The default update: evaporate every entry, then let every ant deposit {@code value / 2000} on
+ * its items and reinforce the global best solution with {@code value / 1000}. Migrants and seeds
+ * get the same reward as the global best. Evaporation is lazy, see {@link PheromoneTrail}, so
+ * the update costs time proportional to the deposited items rather than to the instance size.
+ */
+public class ClassicPheromoneUpdate implements PheromoneUpdateStrategy {
+
+    private static final double INITIAL_LEVEL = 1.0;
+    private static final double REWARD_DIVISOR = 2000.0;
+    private static final double ELITE_DIVISOR = 1000.0;
+
+    @Override
+    public void initialize(PheromoneTrail trail, double evaporationRate) {
+        trail.fill(INITIAL_LEVEL);
+    }
+
+    @Override
+    public void update(PheromoneTrail trail, List<Solution> solutions, Solution iterationBest, Solution globalBest,
+                       double evaporationRate) {
+        trail.setEvaporationRate(evaporationRate);
+        trail.evaporate();
+        List<Solution> deposited = new ArrayList<>(solutions.size() + 1);
+        double[] rewards = new double[solutions.size() + 1];
+        for (Solution solution : solutions) {
+            rewards[deposited.size()] = (double) solution.getValue() / REWARD_DIVISOR;
+            deposited.add(solution);
+        }
+        rewards[deposited.size()] = (double) globalBest.getValue() / ELITE_DIVISOR;
+        deposited.add(globalBest);
+        trail.deposit(deposited, rewards, false);
+    }
+
+    @Override
+    public void reinforce(PheromoneTrail trail, Solution solution) {
+        double reward = (double) solution.getValue() / ELITE_DIVISOR;
+        for (int id = solution.nextSelected(0); id >= 0; id = solution.nextSelected(id + 1)) {
+            trail.add(id, reward);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pl.antpack.core;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Decides when a colony has converged, from two diversity signals.
+ *
+ * The population diversity is the mean pairwise Hamming distance of the solutions of the
+ * iteration divided by twice their mean size, so 0 means all ants built the same solution and 1
+ * means no two solutions share an item. With {@code c_i} ants packing item {@code i} out of
+ * {@code m}, the sum of all pairwise distances is {@code sum c_i (m - c_i)}, which takes one pass
+ * over the bitsets of the solutions instead of {@code m^2} comparisons.
+ *
+ * The branching factor of the trail is the number of items whose pheromone reaches
+ * {@code min + lambda (max - min)} of the current levels, divided by the mean solution size: about
+ * 1 when the trail only favours the items of a single solution, large while it still spreads over
+ * many alternatives.
+ *
+ * The population diversity is measured every iteration and costs {@code O(m n / 64)} word reads
+ * for {@code m} ants and {@code n} items plus {@code O(1)} per packed item. The branching factor
+ * needs a full pass over the trail: it brings every lazily evaporated entry up to date and then
+ * reads all of them twice, {@code O(n)}. It is therefore only sampled every
+ * {@value #BRANCHING_PERIOD} iterations and right after a response, so it costs {@code O(n)}
+ * amortised over that period, and the decision uses the latest sample in between. The trail only
+ * narrows slowly while the colony converges, so a sample a few iterations old is good enough.
+ *
+ * The colony counts as converged when both signals are low. After {@value #PATIENCE} converged
+ * iterations without a new global best, the detector first asks for smoothing the trail towards
+ * its mean, and if that does not help {@value #SMOOTHINGS_BEFORE_RESTART} times, for a restart of
+ * the trail from the best solution found so far. A new global best clears the history.
+ */
+final class ConvergenceDetector {
+
+    /** The graded responses to convergence. */
+    enum Response { NONE, SMOOTH, RESTART }
+
+    static final double CONVERGED_DIVERSITY = 0.1;
+    static final double CONVERGED_BRANCHING = 1.5;
+    static final double LAMBDA = 0.05;
+    static final int PATIENCE = 20;
+    static final int SMOOTHINGS_BEFORE_RESTART = 2;
+    /** Share of the mean level mixed into every entry by a smoothing. */
+    static final double SMOOTHING_WEIGHT = 0.5;
+    /** Number of iterations between two samples of the branching factor. */
+    static final int BRANCHING_PERIOD = 10;
+
+    private static final int CHUNK = 4096;
+
+    private final int[] counts;
+    private double diversity = Double.NaN;
+    private double branchingFactor = Double.NaN;
+    private int convergedIterations;
+    private int smoothings;
+    private int branchingCountdown;
+
+    ConvergenceDetector(int itemCount) {
+        this.counts = new int[itemCount];
+    }
+
+    /**
+     * Measures the population diversity of the iteration and, when its sample is due, the
+     * branching factor of the trail.
+     *
+     * @param solutions the solutions of the iteration
+     * @param trail     the trail after the pheromone update
+     */
+    void measure(List<Solution> solutions, PheromoneTrail trail) {
+        double meanSize = solutions.stream().mapToInt(Solution::size).average().orElse(0);
+        diversity = populationDiversity(solutions, meanSize);
+        if (--branchingCountdown <= 0) {
+            branchingFactor = meanSize > 0 ? trail.countBranching(LAMBDA) / meanSize : Double.NaN;
+            branchingCountdown = BRANCHING_PERIOD;
+        }
+    }
+
+    /**
+     * @param improved whether the iteration found a new global best solution
+     * @return what the engine should do about the trail
+     */
+    Response observe(boolean improved) {
+        if (improved) {
+            convergedIterations = 0;
+            smoothings = 0;
+            return Response.NONE;
+        }
+        if (!(diversity < CONVERGED_DIVERSITY && branchingFactor < CONVERGED_BRANCHING)) {
+            convergedIterations = 0;
+            return Response.NONE;
+        }
+        if (++convergedIterations < PATIENCE) return Response.NONE;
+        convergedIterations = 0;
+        branchingCountdown = 0;
+        if (smoothings < SMOOTHINGS_BEFORE_RESTART) {
+            smoothings++;
+            return Response.SMOOTH;
+        }
+        smoothings = 0;
+        return Response.RESTART;
+    }
+
+    /**
+     * Forgets the converged iterations and smoothings, as after a new global best solution, and
+     * samples the branching factor again at the next measurement.
+     */
+    void reset() {
+        convergedIterations = 0;
+        branchingCountdown = 0;
+        smoothings = 0;
+    }
+
+    /**
+     * @return the population diversity of the last iteration, {@code NaN} before the first
+     *         iteration and for colonies of one ant
+     */
+    double getDiversity() { return diversity; }
+
+    /**
+     * @return the branching factor of the trail at its last sample, {@code NaN} if no ant packed anything
+     */
+    double getBranchingFactor() { return branchingFactor; }
+
+    /**
+     * @return the number of consecutive converged iterations without improvement
+     */
+    int getConvergedIterations() { return convergedIterations; }
+
+    private double populationDiversity(List<Solution> solutions, double meanSize) {
+        int m = solutions.size();
+        if (m < 2) return Double.NaN;
+        if (meanSize == 0) return 0.0;
+        int n = counts.length;
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        long[] partial = new long[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            long sum = 0;
+            int end = Solution.wordCount(Math.min(n, (c + 1) * CHUNK));
+            for (int w = c * CHUNK >>> 6; w < end; w++) {
+                long union = 0;
+                for (Solution solution : solutions) {
+                    long word = solution.word(w);
+                    union |= word;
+                    for (; word != 0; word &= word - 1) counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+                }
+                for (; union != 0; union &= union - 1) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(union);
+                    long count = counts[i];
+                    sum += count * (m - count);
+                    counts[i] = 0;
+                }
+            }
+            partial[c] = sum;
+        });
+        long total = 0;
+        for (long sum : partial) total += sum;
+        double meanDistance = total / (m * (m - 1) / 2.0);
+        return meanDistance / (2 * meanSize);
+    }
+}
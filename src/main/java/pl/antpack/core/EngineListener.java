@@ -0,0 +1,27 @@
+package pl.antpack.core;
+
+import pl.antpack.core.ACOEngine.SimulationMetrics;
+
+/**
+ * Receives progress notifications from an {@link ACOEngine}.
+ *
+ * Callbacks are invoked synchronously on the thread that drives the engine, so implementations
+ * should return quickly and hand the data over to their own thread if they need to do real work
+ * (the JavaFX adapter, for example, forwards everything to the FX application thread).
+ */
+public interface EngineListener {
+
+    /**
+     * Called after every completed iteration.
+     *
+     * @param metrics the metrics of the iteration that has just finished
+     */
+    default void onIteration(SimulationMetrics metrics) {}
+
+    /**
+     * Called for human-readable progress messages such as new records or stagnation resets.
+     *
+     * @param message the message text
+     */
+    default void onLog(String message) {}
+}
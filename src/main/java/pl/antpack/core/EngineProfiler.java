@@ -0,0 +1,161 @@
+package pl.antpack.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects where the iterations of an {@link ACOEngine} spend their time.
+ *
+ * The engine records the duration of every {@link Phase} of an iteration into one
+ * {@link LogHistogram} per phase, and every ant records its construction time, the items it
+ * examined and the candidates it rejected into histograms owned by the worker thread that built
+ * it, so the ants never contend on shared counters. Readers merge the per-thread histograms.
+ *
+ * Profiling is enabled with {@link SolverConfig.Builder#profiling}. When it is off the engine
+ * has no profiler at all and skips the timing calls, so the only cost left is a null check per phase.
+ * Values read while the engine is running may miss the updates of the iteration in progress.
+ */
+public final class EngineProfiler {
+
+    /** The parts of an iteration that are timed, in the order they run. */
+    public enum Phase {
+        CANDIDATE_LIST("wybór listy kandydatów"),
+        CONSTRUCTION("konstrukcja rozwiązań"),
+        LOCAL_SEARCH("przeszukiwanie lokalne"),
+        SELECTION("wybór najlepszego"),
+        PHEROMONE_UPDATE("aktualizacja feromonów"),
+        DIVERSITY("pomiar różnorodności"),
+        STAGNATION_RESET("reakcja na stagnację"),
+        PUBLISHING("publikacja metryk");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    /** The values recorded for every ant. */
+    public enum AntMetric {
+        /** Wall-clock time of one construction in nanoseconds. */
+        BUILD_NANOS("czas budowy [µs]"),
+        /** Items drawn from the roulette wheel or checked by the pruning cursor. */
+        ITEMS_EXAMINED("przedmioty zbadane"),
+        /** Items that fit the empty knapsack but were pruned once they no longer fitted. */
+        CANDIDATES_REJECTED("kandydaci odrzuceni");
+
+        private final String label;
+
+        AntMetric(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class ThreadCounters {
+        private final String thread = Thread.currentThread().getName();
+        private final LogHistogram[] histograms = new LogHistogram[AntMetric.values().length];
+        private long antsBuilt;
+
+        ThreadCounters() {
+            for (int i = 0; i < histograms.length; i++) histograms[i] = new LogHistogram();
+        }
+    }
+
+    private final LogHistogram[] phases = new LogHistogram[Phase.values().length];
+    private final Queue<ThreadCounters> threads = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadCounters> local = ThreadLocal.withInitial(() -> {
+        ThreadCounters counters = new ThreadCounters();
+        threads.add(counters);
+        return counters;
+    });
+
+    public EngineProfiler() {
+        for (int i = 0; i < phases.length; i++) phases[i] = new LogHistogram();
+    }
+
+    /**
+     * Records a phase that started at {@code startNanos} and ends now.
+     *
+     * @return the current {@link System#nanoTime()}, the start of the next phase
+     */
+    public synchronized long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Records one ant construction in the histograms of the calling thread.
+     */
+    public void recordAnt(long buildNanos, int itemsExamined, int candidatesRejected) {
+        ThreadCounters counters = local.get();
+        counters.antsBuilt++;
+        counters.histograms[AntMetric.BUILD_NANOS.ordinal()].record(buildNanos);
+        counters.histograms[AntMetric.ITEMS_EXAMINED.ordinal()].record(itemsExamined);
+        counters.histograms[AntMetric.CANDIDATES_REJECTED.ordinal()].record(candidatesRejected);
+    }
+
+    /**
+     * @return a copy of the durations of the phase, in nanoseconds, one value per iteration it ran in
+     */
+    public synchronized LogHistogram phase(Phase phase) {
+        return phases[phase.ordinal()].copy();
+    }
+
+    /**
+     * @return the values of all ants merged over the worker threads
+     */
+    public LogHistogram ants(AntMetric metric) {
+        LogHistogram merged = new LogHistogram();
+        for (ThreadCounters counters : threads) merged.add(counters.histograms[metric.ordinal()]);
+        return merged;
+    }
+
+    /**
+     * @return the number of ants built by every worker thread, keyed by thread name
+     */
+    public Map<String, Long> antsBuiltPerThread() {
+        Map<String, Long> built = new LinkedHashMap<>();
+        for (ThreadCounters counters : threads) built.merge(counters.thread, counters.antsBuilt, Long::sum);
+        return built;
+    }
+
+    /**
+     * @return the number of iterations profiled so far
+     */
+    public synchronized long iterations() {
+        return phases[Phase.CONSTRUCTION.ordinal()].getCount();
+    }
+
+    /**
+     * Formats all collected data as a multi-line table, durations in microseconds.
+     */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        Map<String, Long> perThread = antsBuiltPerThread();
+        long ants = perThread.values().stream().mapToLong(Long::longValue).sum();
+        out.append(String.format("PROFIL: %d iteracji, %d mrówek na %d wątkach%n",
+                iterations(), ants, perThread.size()));
+        out.append(String.format("%-24s %10s %12s %10s %10s %10s %12s%n",
+                "faza [µs]", "liczba", "średnio", "p50", "p99", "max", "suma [ms]"));
+        for (Phase phase : Phase.values()) {
+            LogHistogram h = phase(phase);
+            if (h.getCount() == 0) continue;
+            out.append(String.format("%-24s %10d %12.1f %10.1f %10.1f %10.1f %12.1f%n", phase.label, h.getCount(),
+                    h.getMean() / 1e3, h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(99) / 1e3,
+                    h.getMax() / 1e3, h.getTotal() / 1e6));
+        }
+        for (AntMetric metric : AntMetric.values()) {
+            LogHistogram h = ants(metric);
+            if (h.getCount() == 0) continue;
+            double scale = metric == AntMetric.BUILD_NANOS ? 1e3 : 1.0;
+            out.append(String.format("%-24s %10d %12.1f %10.1f %10.1f %10.1f%n", metric.label, h.getCount(),
+                    h.getMean() / scale, h.getValueAtPercentile(50) / scale, h.getValueAtPercentile(99) / scale,
+                    h.getMax() / scale));
+        }
+        perThread.forEach((thread, built) -> out.append(String.format("  %-40s %d mrówek%n", thread, built)));
+        return out.toString().stripTrailing();
+    }
+}
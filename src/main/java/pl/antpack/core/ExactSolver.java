@@ -0,0 +1,449 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Exact dynamic-programming solver for the 0/1 knapsack problem.
+ *
+ * Two formulations are available and the cheaper one is picked from the shape of the instance:
+ * <ul>
+ *   <li>{@link Method#WEIGHT_DP} computes the best value for every capacity {@code 0..C},</li>
+ *   <li>{@link Method#VALUE_DP} computes the lowest weight for every value {@code 0..U}, where
+ *       {@code U} is an upper bound on the optimum; it wins when values are small and capacity is large.</li>
+ * </ul>
+ * Both cost {@code n * (table length)} cell updates. The solution is reconstructed by divide and
+ * conquer: the items are split in half, the DP profiles of both halves are combined to find how
+ * the capacity (or value) is shared between them, and each half is solved recursively. Only small
+ * subproblems keep their decisions, one bit per cell, so memory stays linear in the table length
+ * instead of {@code n * C}. Rows of long tables are updated in parallel chunks.
+ */
+public final class ExactSolver {
+
+    /**
+     * The DP formulation.
+     */
+    public enum Method { WEIGHT_DP, VALUE_DP }
+
+    /** The longest DP table the solver allocates, in entries. */
+    public static final int MAX_TABLE_LENGTH = 1 << 24;
+
+    /** Subproblems whose bitset decision table has at most this many words are solved directly. */
+    private static final long LEAF_WORDS = 1L << 18;
+    private static final int PARALLEL_MIN_LENGTH = 1 << 15;
+    private static final int CHUNK = 1 << 14;
+    private static final int INFINITE = Integer.MAX_VALUE;
+
+    private final int[] weights;
+    private final int[] values;
+    private final int[] ids;
+    private final int capacity;
+    private final long[] selected;
+
+    private ExactSolver(ItemColumns items, int[] ids, int capacity) {
+        this.weights = items.weights();
+        this.values = items.values();
+        this.ids = ids;
+        this.capacity = capacity;
+        this.selected = new long[Solution.wordCount(items.size())];
+    }
+
+    /**
+     * @return the table length of the given formulation, which may exceed {@link #MAX_TABLE_LENGTH}
+     */
+    public static long tableLength(ProblemInstance instance, Method method) {
+        if (method == Method.WEIGHT_DP) return instance.capacity() + 1L;
+        ItemColumns items = instance.items();
+        long sum = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (items.weight(i) <= instance.capacity()) sum += items.value(i);
+        }
+        long bound = UpperBounds.martelloToth(items, instance.capacity(), ItemOrder.byEfficiencyDescending(items));
+        return Math.min(sum, bound) + 1;
+    }
+
+    /**
+     * @return the formulation with the shorter table
+     */
+    public static Method chooseMethod(ProblemInstance instance) {
+        return tableLength(instance, Method.VALUE_DP) < tableLength(instance, Method.WEIGHT_DP)
+                ? Method.VALUE_DP : Method.WEIGHT_DP;
+    }
+
+    /**
+     * Estimates the work of {@link #solve(ProblemInstance)}.
+     *
+     * @return the number of cell updates of the cheaper formulation, without the reconstruction overhead
+     */
+    public static long estimateCost(ProblemInstance instance) {
+        long length = Math.min(tableLength(instance, Method.WEIGHT_DP), tableLength(instance, Method.VALUE_DP));
+        return cells(instance.items().size(), length);
+    }
+
+    private static long cells(int itemCount, long length) {
+        return length > Long.MAX_VALUE / Math.max(1, itemCount) ? Long.MAX_VALUE : itemCount * length;
+    }
+
+    /**
+     * @return {@code true} if the table of the cheaper formulation fits into {@link #MAX_TABLE_LENGTH}
+     */
+    public static boolean isFeasible(ProblemInstance instance) {
+        return tableLength(instance, chooseMethod(instance)) <= MAX_TABLE_LENGTH;
+    }
+
+    /**
+     * Solves the instance to optimality with the cheaper formulation.
+     *
+     * @param instance the instance to solve
+     * @return an optimal solution
+     * @throws IllegalArgumentException if the table would exceed {@link #MAX_TABLE_LENGTH}
+     */
+    public static Solution solve(ProblemInstance instance) {
+        return solve(instance, chooseMethod(instance));
+    }
+
+    /**
+     * Solves the instance to optimality with the given formulation.
+     *
+     * @param instance the instance to solve
+     * @param method   the formulation to use
+     * @return an optimal solution
+     * @throws IllegalArgumentException if the table would exceed {@link #MAX_TABLE_LENGTH}
+     */
+    public static Solution solve(ProblemInstance instance, Method method) {
+        long length = tableLength(instance, method);
+        if (length > MAX_TABLE_LENGTH) {
+            throw new IllegalArgumentException("DP table of " + length + " entries is too large");
+        }
+        ItemColumns items = instance.items();
+        int capacity = instance.capacity();
+        int[] useful = IntStream.range(0, items.size())
+                .filter(i -> items.weight(i) <= capacity && items.value(i) > 0)
+                .toArray();
+        ExactSolver solver = new ExactSolver(items, useful, capacity);
+
+        if (method == Method.WEIGHT_DP) {
+            solver.solveByWeight(0, useful.length, capacity);
+        } else {
+            int[] profile = solver.valueProfile(0, useful.length, (int) length - 1);
+            int best = 0;
+            for (int v = profile.length - 1; v > 0; v--) {
+                if (profile[v] <= capacity) {
+                    best = v;
+                    break;
+                }
+            }
+            solver.solveByValue(0, useful.length, best);
+        }
+        return solver.toSolution();
+    }
+
+    /**
+     * Solves scaled-down copies of the instance whose DP costs at most {@code budget} cell updates
+     * in total, and returns the best of the resulting solutions and the plain greedy solution.
+     *
+     * The weight formulation rounds weights up and the capacity down by the same factor, which
+     * keeps every solution feasible for the original instance. The value formulation rounds values
+     * down, which bounds the loss of value relative to the optimum. The capacity left unused by the
+     * rounding is then filled greedily in efficiency order.
+     *
+     * @param instance the instance to approximate
+     * @param budget   the maximal number of cell updates
+     * @return a feasible solution of the original instance
+     */
+    public static Solution approximate(ProblemInstance instance, long budget) {
+        int[] byEfficiency = ItemOrder.byEfficiencyDescending(instance.items());
+        Solution best = fillGreedily(instance, byEfficiency, new long[Solution.wordCount(instance.items().size())], 0, 0);
+        for (Method method : Method.values()) {
+            Solution candidate = approximate(instance, byEfficiency, method, budget / 2);
+            if (candidate.getValue() > best.getValue()) best = candidate;
+        }
+        return best;
+    }
+
+    private static Solution approximate(ProblemInstance instance, int[] byEfficiency, Method method, long budget) {
+        ItemColumns items = instance.items();
+        int n = items.size();
+        long length = tableLength(instance, method);
+        long scale = Math.max(1, Math.max(ceilDiv(cells(n, length), Math.max(1, budget)), ceilDiv(length, MAX_TABLE_LENGTH)));
+
+        int[] weights = new int[n];
+        int[] values = new int[n];
+        int capacity = instance.capacity();
+        for (int i = 0; i < n; i++) {
+            if (method == Method.WEIGHT_DP) {
+                weights[i] = (int) ceilDiv(items.weight(i), scale);
+                values[i] = items.value(i);
+            } else {
+                weights[i] = items.weight(i);
+                values[i] = (int) (items.value(i) / scale);
+            }
+        }
+        if (method == Method.WEIGHT_DP) capacity = (int) (capacity / scale);
+
+        Solution scaled = scale == 1
+                ? solve(instance, method)
+                : solve(new ProblemInstance(new ItemColumns(weights, values), capacity), method);
+        long[] words = scaled.toWords();
+        int value = 0;
+        int weight = 0;
+        for (int id = scaled.nextSelected(0); id >= 0; id = scaled.nextSelected(id + 1)) {
+            value += items.value(id);
+            weight += items.weight(id);
+        }
+        return fillGreedily(instance, byEfficiency, words, value, weight);
+    }
+
+    /**
+     * Adds the unpacked items that still fit in efficiency order to a partial solution.
+     */
+    private static Solution fillGreedily(ProblemInstance instance, int[] byEfficiency, long[] words, int value, int weight) {
+        ItemColumns items = instance.items();
+        for (int id : byEfficiency) {
+            if ((words[id >>> 6] & (1L << id)) == 0 && items.weight(id) <= instance.capacity() - weight) {
+                words[id >>> 6] |= 1L << id;
+                value += items.value(id);
+                weight += items.weight(id);
+            }
+        }
+        return new Solution(words, value, weight);
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return a / b + (a % b == 0 ? 0 : 1);
+    }
+
+    private static boolean isLeaf(int itemCount, int tableLength) {
+        return itemCount == 1 || (long) itemCount * Solution.wordCount(tableLength) <= LEAF_WORDS;
+    }
+
+    private Solution toSolution() {
+        int value = 0;
+        int weight = 0;
+        for (int w = 0; w < selected.length; w++) {
+            long word = selected[w];
+            while (word != 0) {
+                int id = (w << 6) + Long.numberOfTrailingZeros(word);
+                value += values[id];
+                weight += weights[id];
+                word &= word - 1;
+            }
+        }
+        return new Solution(selected, value, weight);
+    }
+
+    private void select(int id) {
+        selected[id >>> 6] |= 1L << id;
+    }
+
+    // ---- weight-indexed DP -------------------------------------------------------------------
+
+    /**
+     * Packs an optimal subset of {@code ids[from..to)} into {@code capacity}.
+     */
+    private void solveByWeight(int from, int to, int capacity) {
+        if (to <= from) return;
+        if (isLeaf(to - from, capacity + 1)) {
+            leafByWeight(from, to, capacity);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int split = splitByWeight(from, mid, to, capacity);
+        solveByWeight(from, mid, split);
+        solveByWeight(mid, to, capacity - split);
+    }
+
+    /**
+     * @return the capacity given to the first half in an optimal solution
+     */
+    private int splitByWeight(int from, int mid, int to, int capacity) {
+        int[] first = weightProfile(from, mid, capacity);
+        int[] second = weightProfile(mid, to, capacity);
+        int best = 0;
+        long bestValue = -1;
+        for (int c = 0; c <= capacity; c++) {
+            long total = (long) first[c] + second[capacity - c];
+            if (total > bestValue) {
+                bestValue = total;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the best value of a subset of {@code ids[from..to)} for every capacity {@code 0..capacity}
+     */
+    private int[] weightProfile(int from, int to, int capacity) {
+        int length = capacity + 1;
+        int[] dp = new int[length];
+        if (length < PARALLEL_MIN_LENGTH) {
+            for (int k = from; k < to; k++) {
+                int w = weights[ids[k]];
+                int v = values[ids[k]];
+                for (int c = capacity; c >= w; c--) {
+                    int candidate = dp[c - w] + v;
+                    if (candidate > dp[c]) dp[c] = candidate;
+                }
+            }
+            return dp;
+        }
+
+        int[] next = new int[length];
+        int chunks = (length + CHUNK - 1) / CHUNK;
+        for (int k = from; k < to; k++) {
+            int w = weights[ids[k]];
+            int v = values[ids[k]];
+            int[] prev = dp;
+            int[] row = next;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int start = chunk * CHUNK;
+                int end = Math.min(length, start + CHUNK);
+                for (int c = start; c < end; c++) {
+                    int keep = prev[c];
+                    row[c] = c >= w ? Math.max(keep, prev[c - w] + v) : keep;
+                }
+            });
+            next = dp;
+            dp = row;
+        }
+        return dp;
+    }
+
+    private void leafByWeight(int from, int to, int capacity) {
+        int words = Solution.wordCount(capacity + 1);
+        long[] taken = new long[(to - from) * words];
+        int[] dp = new int[capacity + 1];
+        for (int k = from; k < to; k++) {
+            int w = weights[ids[k]];
+            int v = values[ids[k]];
+            int base = (k - from) * words;
+            for (int c = capacity; c >= w; c--) {
+                int candidate = dp[c - w] + v;
+                if (candidate > dp[c]) {
+                    dp[c] = candidate;
+                    taken[base + (c >>> 6)] |= 1L << c;
+                }
+            }
+        }
+        int c = capacity;
+        for (int k = to - 1; k >= from; k--) {
+            int base = (k - from) * words;
+            if ((taken[base + (c >>> 6)] & (1L << c)) != 0) {
+                select(ids[k]);
+                c -= weights[ids[k]];
+            }
+        }
+    }
+
+    // ---- value-indexed DP --------------------------------------------------------------------
+
+    /**
+     * Selects a subset of {@code ids[from..to)} with exactly {@code value} and the lowest weight.
+     */
+    private void solveByValue(int from, int to, int value) {
+        if (to <= from || value <= 0) return;
+        if (isLeaf(to - from, value + 1)) {
+            leafByValue(from, to, value);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int split = splitByValue(from, mid, to, value);
+        solveByValue(from, mid, split);
+        solveByValue(mid, to, value - split);
+    }
+
+    /**
+     * @return the value contributed by the first half in a lightest subset with exactly {@code value}
+     */
+    private int splitByValue(int from, int mid, int to, int value) {
+        int[] first = valueProfile(from, mid, value);
+        int[] second = valueProfile(mid, to, value);
+        int best = 0;
+        long bestWeight = Long.MAX_VALUE;
+        for (int v = 0; v <= value; v++) {
+            if (first[v] == INFINITE || second[value - v] == INFINITE) continue;
+            long total = (long) first[v] + second[value - v];
+            if (total < bestWeight) {
+                bestWeight = total;
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the lowest weight of a subset of {@code ids[from..to)} with exactly value {@code v},
+     *         for every {@code v} in {@code 0..maxValue}; {@link #INFINITE} where no subset fits the capacity
+     */
+    private int[] valueProfile(int from, int to, int maxValue) {
+        int length = maxValue + 1;
+        int[] dp = new int[length];
+        Arrays.fill(dp, 1, length, INFINITE);
+        if (length < PARALLEL_MIN_LENGTH) {
+            for (int k = from; k < to; k++) {
+                int w = weights[ids[k]];
+                int p = values[ids[k]];
+                for (int v = maxValue; v >= p; v--) {
+                    int base = dp[v - p];
+                    if (base <= capacity - w && base + w < dp[v]) dp[v] = base + w;
+                }
+            }
+            return dp;
+        }
+
+        int[] next = new int[length];
+        int chunks = (length + CHUNK - 1) / CHUNK;
+        for (int k = from; k < to; k++) {
+            int w = weights[ids[k]];
+            int p = values[ids[k]];
+            int[] prev = dp;
+            int[] row = next;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int start = chunk * CHUNK;
+                int end = Math.min(length, start + CHUNK);
+                for (int v = start; v < end; v++) {
+                    int keep = prev[v];
+                    if (v >= p) {
+                        int base = prev[v - p];
+                        if (base <= capacity - w && base + w < keep) keep = base + w;
+                    }
+                    row[v] = keep;
+                }
+            });
+            next = dp;
+            dp = row;
+        }
+        return dp;
+    }
+
+    private void leafByValue(int from, int to, int value) {
+        int words = Solution.wordCount(value + 1);
+        long[] taken = new long[(to - from) * words];
+        int[] dp = new int[value + 1];
+        Arrays.fill(dp, 1, value + 1, INFINITE);
+        for (int k = from; k < to; k++) {
+            int w = weights[ids[k]];
+            int p = values[ids[k]];
+            int base = (k - from) * words;
+            for (int v = value; v >= p; v--) {
+                int prev = dp[v - p];
+                if (prev <= capacity - w && prev + w < dp[v]) {
+                    dp[v] = prev + w;
+                    taken[base + (v >>> 6)] |= 1L << v;
+                }
+            }
+        }
+        int v = value;
+        for (int k = to - 1; k >= from; k--) {
+            int base = (k - from) * words;
+            if ((taken[base + (v >>> 6)] & (1L << v)) != 0) {
+                select(ids[k]);
+                v -= values[ids[k]];
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package pl.antpack.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/**
+ * JFR event emitted when the global best solution of an {@link ACOEngine} improves, either
+ * through its own ants or through a solution injected from outside.
+ */
+@Name("pl.antpack.NewGlobalBest")
+@Label("New Global Best")
+@Category({"AntPack", "Engine"})
+@Description("The global best solution of a colony improved")
+final class GlobalBestEvent extends jdk.jfr.Event {
+
+    @Label("Colony")
+    int colony;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Value")
+    int value;
+
+    @Label("Previous Value")
+    @Description("The previous global best value, 0 if there was none")
+    int previousValue;
+
+    @Label("Weight")
+    int weight;
+
+    @Label("Gap")
+    @Percentage
+    double gap;
+
+    @Label("Source")
+    @Description("iteration, migration or seed")
+    String source;
+}
@@ -0,0 +1,266 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ProblemInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Island model: several independent colonies solving the same instance side by side.
+ *
+ * Every island is a separate {@link ACOEngine} with its own pheromone trail and parameters,
+ * driven by its own thread. The islands run in epochs of {@code migrationInterval} iterations;
+ * between epochs, while all colonies are paused, information flows along the configured
+ * {@link Topology}, either as elite solutions or by blending pheromone trails. Because the
+ * colonies only meet at epoch boundaries, search effort scales with the number of cores
+ * without the colonies collapsing onto the same solution.
+ */
+public class IslandSolver implements AutoCloseable {
+
+    /**
+     * Which islands exchange information at the end of an epoch.
+     */
+    public enum Topology {
+        /** Island {@code i} receives from island {@code i - 1} (wrapping around). */
+        RING,
+        /** Every island receives from all the other islands. */
+        FULLY_CONNECTED
+    }
+
+    /**
+     * What is exchanged between islands.
+     */
+    public enum Migration {
+        /** The best solution of the source island is injected into the target colony. */
+        ELITE,
+        /** The target trail is blended with the source trail (or their mean for many sources). */
+        PHEROMONE_BLEND
+    }
+
+    /** Share of the foreign trail used by {@link #uniform} for {@link Migration#PHEROMONE_BLEND}. */
+    public static final double DEFAULT_BLEND_WEIGHT = 0.25;
+
+    private final List<ACOEngine> islands;
+    private final int migrationInterval;
+    private final Topology topology;
+    private final Migration migration;
+    private final double blendWeight;
+    private final int itemCount;
+    private volatile boolean stopRequested = false;
+    private volatile boolean goalReached = false;
+
+    /**
+     * Creates one island per configuration.
+     *
+     * @param instance          the problem solved by every island
+     * @param configs           the parameters of each island; the stop criteria of each
+     *                          configuration bound its island
+     * @param migrationInterval the number of iterations between migrations
+     * @param topology          the communication pattern between islands
+     * @param migration         the kind of information exchanged
+     * @param blendWeight       the share of the foreign trail used by {@link Migration#PHEROMONE_BLEND}
+     * @throws IllegalArgumentException if {@link Migration#PHEROMONE_BLEND} is combined with a
+     *                                  pheromone update that does not support blending
+     */
+    public IslandSolver(ProblemInstance instance, List<SolverConfig> configs, int migrationInterval,
+                        Topology topology, Migration migration, double blendWeight) {
+        if (configs.isEmpty()) throw new IllegalArgumentException("At least one island is required");
+        if (migrationInterval < 1) throw new IllegalArgumentException("migrationInterval must be positive");
+        this.migrationInterval = migrationInterval;
+        this.topology = topology;
+        this.migration = migration;
+        this.blendWeight = blendWeight;
+        this.itemCount = instance.items().size();
+        this.islands = new ArrayList<>(configs.size());
+        for (SolverConfig config : configs) {
+            islands.add(new ACOEngine(instance, config));
+        }
+        if (migration == Migration.PHEROMONE_BLEND
+                && !islands.stream().allMatch(ACOEngine::supportsPheromoneBlending)) {
+            islands.forEach(ACOEngine::close);
+            throw new IllegalArgumentException("PHEROMONE_BLEND migration requires a pheromone update that supports blending");
+        }
+    }
+
+    /**
+     * Creates {@code islandCount} islands sharing the same parameters. Each island gets a single
+     * worker thread, so the islands rather than the ants are spread over the cores, and its own
+     * random stream derived from the configured seed.
+     *
+     * @param instance          the problem solved by every island
+     * @param config            the parameters shared by all islands
+     * @param islandCount       the number of colonies
+     * @param migrationInterval the number of iterations between migrations
+     * @param topology          the communication pattern between islands
+     * @param migration         the kind of information exchanged
+     * @return the island solver
+     */
+    public static IslandSolver uniform(ProblemInstance instance, SolverConfig config, int islandCount,
+                                       int migrationInterval, Topology topology, Migration migration) {
+        List<SolverConfig> configs = new ArrayList<>(islandCount);
+        for (int i = 0; i < islandCount; i++) {
+            configs.add(config.toBuilder()
+                    .parallelism(1)
+                    .seed(RandomStreams.derive(config.getSeed(), i))
+                    .build());
+        }
+        return new IslandSolver(instance, configs, migrationInterval, topology, migration, DEFAULT_BLEND_WEIGHT);
+    }
+
+    /**
+     * Runs all islands until every one of them meets one of its stop criteria or {@link #stop()}
+     * is called. An island that proves its best solution optimal or reaches the target value
+     * ends the whole run, since the other islands cannot do better. Migrations happen on the
+     * calling thread between epochs.
+     *
+     * @return the best solution across all islands; the iteration count is the sum over islands
+     *         and the stop reason is the most conclusive reason among the islands
+     */
+    public SolveResult run() {
+        stopRequested = false;
+        goalReached = false;
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size(), r -> {
+            Thread thread = new Thread(r, "aco-island");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            while (!stopRequested && !goalReached && hasWorkLeft()) {
+                List<Callable<Void>> epoch = new ArrayList<>(islands.size());
+                for (ACOEngine island : islands) {
+                    epoch.add(() -> {
+                        for (int k = 0; k < migrationInterval && !stopRequested && !goalReached; k++) {
+                            StopReason reason = island.evaluateStopCriteria();
+                            if (reason == StopReason.OPTIMAL || reason == StopReason.TARGET_REACHED) {
+                                goalReached = true;
+                            }
+                            if (reason != null) break;
+                            island.step();
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> future : executor.invokeAll(epoch)) {
+                    future.get();
+                }
+                migrate();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Island failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int iterations = islands.stream().mapToInt(ACOEngine::getIteration).sum();
+        return new SolveResult(getGlobalBest(), iterations, System.currentTimeMillis() - start, stopReason());
+    }
+
+    private boolean hasWorkLeft() {
+        for (ACOEngine island : islands) {
+            if (island.evaluateStopCriteria() == null) return true;
+        }
+        return false;
+    }
+
+    private StopReason stopReason() {
+        StopReason result = stopRequested ? StopReason.STOPPED : null;
+        for (ACOEngine island : islands) {
+            StopReason reason = island.evaluateStopCriteria();
+            if (reason != null && (result == null || reason.compareTo(result) < 0)) result = reason;
+        }
+        return result != null ? result : StopReason.STOPPED;
+    }
+
+    /**
+     * Exchanges information between islands. All sources are captured before any target is
+     * modified, so the outcome does not depend on the order in which islands are visited.
+     */
+    private void migrate() {
+        int n = islands.size();
+        if (n < 2) return;
+
+        if (migration == Migration.ELITE) {
+            List<Solution> bests = islands.stream().map(ACOEngine::getGlobalBest).toList();
+            for (int i = 0; i < n; i++) {
+                Solution immigrant = null;
+                if (topology == Topology.RING) {
+                    immigrant = bests.get((i + n - 1) % n);
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        Solution candidate = bests.get(j);
+                        if (j != i && candidate != null
+                                && (immigrant == null || candidate.getValue() > immigrant.getValue())) {
+                            immigrant = candidate;
+                        }
+                    }
+                }
+                islands.get(i).acceptImmigrant(immigrant);
+            }
+        } else {
+            double[][] trails = new double[n][itemCount];
+            for (int i = 0; i < n; i++) {
+                islands.get(i).copyPheromones(trails[i]);
+            }
+            double[] source = new double[itemCount];
+            for (int i = 0; i < n; i++) {
+                if (topology == Topology.RING) {
+                    System.arraycopy(trails[(i + n - 1) % n], 0, source, 0, itemCount);
+                } else {
+                    Arrays.fill(source, 0.0);
+                    for (int j = 0; j < n; j++) {
+                        if (j == i) continue;
+                        for (int k = 0; k < itemCount; k++) source[k] += trails[j][k];
+                    }
+                    for (int k = 0; k < itemCount; k++) source[k] /= (n - 1);
+                }
+                islands.get(i).blendPheromones(source, blendWeight);
+            }
+        }
+    }
+
+    /**
+     * @return the best solution found by any island, or {@code null} before the first epoch
+     */
+    public Solution getGlobalBest() {
+        Solution best = null;
+        for (ACOEngine island : islands) {
+            Solution candidate = island.getGlobalBest();
+            if (candidate != null && (best == null || candidate.getValue() > best.getValue())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the island engines, for example to attach listeners to them
+     */
+    public List<ACOEngine> getIslands() {
+        return List.copyOf(islands);
+    }
+
+    /**
+     * Requests the end of {@link #run()}; the islands finish their current iteration first.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    @Override
+    public void close() {
+        stopRequested = true;
+        for (ACOEngine island : islands) {
+            island.close();
+        }
+    }
+}
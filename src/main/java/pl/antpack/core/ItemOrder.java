@@ -0,0 +1,73 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+import java.util.Arrays;
+
+/**
+ * Static helpers producing item index permutations used by the optimizer.
+ * Permutations depend only on the instance, so they are computed once and shared.
+ */
+public final class ItemOrder {
+
+    private ItemOrder() {}
+
+    /**
+     * Returns the item indices ordered from the heaviest to the lightest item.
+     * Ties are broken by the item index, so the order is deterministic.
+     *
+     * @param items the items to order
+     * @return a permutation of {@code 0..n-1} sorted by decreasing weight
+     */
+    public static int[] byWeightDescending(ItemColumns items) {
+        int n = items.size();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) -items.weight(i) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Returns the item indices ordered from the most to the least efficient item, where the
+     * efficiency of an item is {@code value / weight}. Ties are broken by the item index.
+     *
+     * The indices are first sorted by a packed key holding the efficiency rounded to a float,
+     * then an insertion pass with the exact cross-multiplied comparison fixes the few
+     * neighbours the rounding put out of order, so the whole sort stays on primitive arrays.
+     *
+     * @param items the items to order
+     * @return a permutation of {@code 0..n-1} sorted by decreasing efficiency
+     */
+    public static int[] byEfficiencyDescending(ItemColumns items) {
+        int n = items.size();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            float efficiency = (float) items.value(i) / items.weight(i);
+            keys[i] = ((long) ~Float.floatToIntBits(efficiency) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int current = (int) keys[i];
+            int j = i - 1;
+            while (j >= 0 && moreEfficient(items, current, order[j])) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+        return order;
+    }
+
+    private static boolean moreEfficient(ItemColumns items, int a, int b) {
+        long lhs = (long) items.value(a) * items.weight(b);
+        long rhs = (long) items.value(b) * items.weight(a);
+        return lhs > rhs || (lhs == rhs && a < b);
+    }
+}
@@ -0,0 +1,57 @@
+package pl.antpack.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/**
+ * JFR event spanning one iteration of an {@link ACOEngine}, from the start of the construction to
+ * the end of the pheromone update. The fields are enough to plot the convergence of every colony
+ * from a recording alone.
+ */
+@Name("pl.antpack.Iteration")
+@Label("ACO Iteration")
+@Category({"AntPack", "Engine"})
+@Description("One iteration of an ant colony")
+final class IterationEvent extends jdk.jfr.Event {
+
+    @Label("Colony")
+    @Description("Id of the engine within the process")
+    int colony;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Ants")
+    int ants;
+
+    @Label("Iteration Best")
+    int iterationBest;
+
+    @Label("Average")
+    double average;
+
+    @Label("Global Best")
+    int globalBest;
+
+    @Label("Upper Bound")
+    long upperBound;
+
+    @Label("Gap")
+    @Percentage
+    double gap;
+
+    @Label("Improved")
+    @Description("Whether the iteration found a new global best solution")
+    boolean improved;
+
+    @Label("Diversity")
+    @Description("Mean pairwise Hamming distance of the solutions divided by twice their mean size")
+    double diversity;
+
+    @Label("Branching Factor")
+    @Description("Items within the top 95% of the pheromone range divided by the mean solution size")
+    double branchingFactor;
+}
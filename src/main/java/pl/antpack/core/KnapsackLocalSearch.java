@@ -0,0 +1,234 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Local search for the 0/1 knapsack problem built from four classic moves:
+ * <ul>
+ *   <li>{@link Move#GREEDY_FILL} packs the most efficient items that still fit into the leftover capacity,</li>
+ *   <li>{@link Move#SWAP_1_1} exchanges one packed item for one unpacked item,</li>
+ *   <li>{@link Move#SWAP_2_1} exchanges two packed items for one unpacked item,</li>
+ *   <li>{@link Move#DROP_ADD} removes one packed item and refills the freed capacity greedily.</li>
+ * </ul>
+ *
+ * Every move is evaluated in O(1) from the weight and value deltas of the items involved. The
+ * swap neighbourhoods are restricted to candidate lists taken from the efficiency order: the
+ * least efficient packed items and the most efficient unpacked ones, which is where improving
+ * exchanges almost always are. The search repeats the best improving move of the first move type
+ * that has one, followed by a greedy fill, until no move improves the solution or the deadline passes.
+ */
+public class KnapsackLocalSearch implements LocalSearch {
+
+    /**
+     * The moves the search may use.
+     */
+    public enum Move { GREEDY_FILL, SWAP_1_1, SWAP_2_1, DROP_ADD }
+
+    /** Default size of the packed and unpacked candidate lists. */
+    public static final int DEFAULT_NEIGHBOURHOOD = 64;
+
+    private final int[] weights;
+    private final int[] values;
+    private final int[] byEfficiency;
+    private final int capacity;
+    private final int minWeight;
+    private final Set<Move> moves;
+    private final int neighbourhood;
+
+    /**
+     * Creates a search using all moves and the default neighbourhood size.
+     */
+    public KnapsackLocalSearch(ItemColumns items, int capacity) {
+        this(items, capacity, EnumSet.allOf(Move.class), DEFAULT_NEIGHBOURHOOD);
+    }
+
+    /**
+     * @param items         the columnar item data
+     * @param capacity      the knapsack capacity
+     * @param moves         the moves to use
+     * @param neighbourhood the number of packed and of unpacked items considered by the swap moves;
+     *                      {@link Move#SWAP_2_1} uses half of it, since it looks at pairs
+     */
+    public KnapsackLocalSearch(ItemColumns items, int capacity, Set<Move> moves, int neighbourhood) {
+        if (neighbourhood < 1) throw new IllegalArgumentException("neighbourhood must be positive");
+        this.weights = items.weights();
+        this.values = items.values();
+        this.byEfficiency = ItemOrder.byEfficiencyDescending(items);
+        this.capacity = capacity;
+        int min = Integer.MAX_VALUE;
+        for (int w : weights) min = Math.min(min, w);
+        this.minWeight = min;
+        this.moves = moves.isEmpty() ? EnumSet.noneOf(Move.class) : EnumSet.copyOf(moves);
+        this.neighbourhood = neighbourhood;
+    }
+
+    @Override
+    public Solution improve(Solution solution, long deadlineNanos) {
+        Packing p = new Packing(solution, neighbourhood);
+        boolean fill = moves.contains(Move.GREEDY_FILL);
+        if (fill) greedyFill(p);
+
+        while (System.nanoTime() < deadlineNanos) {
+            collectCandidates(p);
+            boolean moved = (moves.contains(Move.SWAP_1_1) && swapOneOne(p))
+                    || (moves.contains(Move.SWAP_2_1) && swapTwoOne(p, deadlineNanos))
+                    || (moves.contains(Move.DROP_ADD) && dropAdd(p));
+            if (!moved) break;
+            if (fill) greedyFill(p);
+        }
+
+        return p.value > solution.getValue() ? new Solution(p.words, p.value, p.weight) : solution;
+    }
+
+    /**
+     * Adds unpacked items in decreasing efficiency order while any of them fits.
+     */
+    private void greedyFill(Packing p) {
+        for (int k = 0; k < byEfficiency.length && capacity - p.weight >= minWeight; k++) {
+            int id = byEfficiency[k];
+            if (!p.contains(id) && weights[id] <= capacity - p.weight && values[id] > 0) {
+                p.add(id);
+            }
+        }
+    }
+
+    /**
+     * Fills the candidate lists: the least efficient packed items and the most efficient
+     * unpacked items that fit into an empty knapsack.
+     */
+    private void collectCandidates(Packing p) {
+        p.inCount = 0;
+        for (int k = byEfficiency.length - 1; k >= 0 && p.inCount < neighbourhood; k--) {
+            int id = byEfficiency[k];
+            if (p.contains(id)) p.in[p.inCount++] = id;
+        }
+        p.outCount = 0;
+        for (int k = 0; k < byEfficiency.length && p.outCount < neighbourhood; k++) {
+            int id = byEfficiency[k];
+            if (!p.contains(id) && weights[id] <= capacity) p.out[p.outCount++] = id;
+        }
+    }
+
+    private boolean swapOneOne(Packing p) {
+        int residual = capacity - p.weight;
+        int bestGain = 0;
+        int bestIn = -1;
+        int bestOut = -1;
+        for (int a = 0; a < p.inCount; a++) {
+            int i = p.in[a];
+            for (int b = 0; b < p.outCount; b++) {
+                int j = p.out[b];
+                int gain = values[j] - values[i];
+                if (gain > bestGain && weights[j] - weights[i] <= residual) {
+                    bestGain = gain;
+                    bestIn = i;
+                    bestOut = j;
+                }
+            }
+        }
+        if (bestIn < 0) return false;
+        p.remove(bestIn);
+        p.add(bestOut);
+        return true;
+    }
+
+    private boolean swapTwoOne(Packing p, long deadlineNanos) {
+        int residual = capacity - p.weight;
+        int inCount = Math.min(p.inCount, Math.max(2, neighbourhood / 2));
+        int bestGain = 0;
+        int bestFirst = -1;
+        int bestSecond = -1;
+        int bestOut = -1;
+        for (int b = 0; b < p.outCount; b++) {
+            if (System.nanoTime() >= deadlineNanos) break;
+            int j = p.out[b];
+            int needed = weights[j] - residual;
+            for (int a1 = 0; a1 < inCount; a1++) {
+                int i1 = p.in[a1];
+                for (int a2 = a1 + 1; a2 < inCount; a2++) {
+                    int i2 = p.in[a2];
+                    int gain = values[j] - values[i1] - values[i2];
+                    if (gain > bestGain && weights[i1] + weights[i2] >= needed) {
+                        bestGain = gain;
+                        bestFirst = i1;
+                        bestSecond = i2;
+                        bestOut = j;
+                    }
+                }
+            }
+        }
+        if (bestOut < 0) return false;
+        p.remove(bestFirst);
+        p.remove(bestSecond);
+        p.add(bestOut);
+        return true;
+    }
+
+    private boolean dropAdd(Packing p) {
+        int bestGain = 0;
+        int bestDrop = -1;
+        for (int a = 0; a < p.inCount; a++) {
+            int i = p.in[a];
+            int residual = capacity - p.weight + weights[i];
+            int gain = -values[i];
+            for (int b = 0; b < p.outCount; b++) {
+                int j = p.out[b];
+                if (weights[j] <= residual) {
+                    residual -= weights[j];
+                    gain += values[j];
+                }
+            }
+            if (gain > bestGain) {
+                bestGain = gain;
+                bestDrop = i;
+            }
+        }
+        if (bestDrop < 0) return false;
+        p.remove(bestDrop);
+        for (int b = 0; b < p.outCount; b++) {
+            int j = p.out[b];
+            if (weights[j] <= capacity - p.weight) p.add(j);
+        }
+        return true;
+    }
+
+    /**
+     * Mutable working copy of the solution being improved.
+     */
+    private final class Packing {
+        final long[] words;
+        int value;
+        int weight;
+        final int[] in;
+        final int[] out;
+        int inCount;
+        int outCount;
+
+        Packing(Solution solution, int neighbourhood) {
+            this.words = solution.toWords();
+            this.value = solution.getValue();
+            this.weight = solution.getWeight();
+            this.in = new int[neighbourhood];
+            this.out = new int[neighbourhood];
+        }
+
+        boolean contains(int id) {
+            return (words[id >>> 6] & (1L << id)) != 0;
+        }
+
+        void add(int id) {
+            words[id >>> 6] |= 1L << id;
+            value += values[id];
+            weight += weights[id];
+        }
+
+        void remove(int id) {
+            words[id >>> 6] &= ~(1L << id);
+            value -= values[id];
+            weight -= weights[id];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+/**
+ * Improvement step applied to constructed solutions before the pheromone update.
+ *
+ * The engine hands the best solutions of every iteration to a local search, which may return a
+ * better feasible solution for the same instance. Implementations must be thread-safe, since
+ * several solutions are improved in parallel.
+ */
+public interface LocalSearch {
+
+    /**
+     * Tries to improve a feasible solution.
+     *
+     * @param solution      the solution to improve
+     * @param deadlineNanos the {@link System#nanoTime()} at which the search must return,
+     *                      or {@link Long#MAX_VALUE} for no time limit
+     * @return a feasible solution at least as good as {@code solution}; the argument itself if
+     *         no improvement was found
+     */
+    Solution improve(Solution solution, long deadlineNanos);
+
+    /**
+     * Creates a local search bound to one instance.
+     */
+    @FunctionalInterface
+    interface Factory {
+        LocalSearch create(ItemColumns items, int capacity);
+    }
+}
@@ -0,0 +1,110 @@
+package pl.antpack.core;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative {@code long} values with logarithmic buckets, in the style of
+ * HdrHistogram.
+ *
+ * Every power of two is split into 32 linear sub-buckets, so a recorded value
+ * is known to within about 3% of its magnitude while the whole {@code long} range fits in a fixed
+ * array of under two thousand counters. Recording is a few arithmetic operations and never
+ * allocates. The class is not thread-safe; concurrent writers keep one histogram each and
+ * {@link #add} them together when reading.
+ */
+public final class LogHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records one value; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[index(v)]++;
+        count++;
+        sum += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     */
+    public void add(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return an independent copy of this histogram
+     */
+    public LogHistogram copy() {
+        LogHistogram copy = new LogHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() { return count; }
+
+    /**
+     * @return the exact sum of the recorded values
+     */
+    public long getTotal() { return sum; }
+
+    public long getMin() { return count == 0 ? 0 : min; }
+
+    public long getMax() { return max; }
+
+    public double getMean() { return count == 0 ? 0.0 : (double) sum / count; }
+
+    /**
+     * Returns the value below or at which the given percentage of the recorded values fall,
+     * rounded up to the end of its bucket and never above the recorded maximum.
+     *
+     * @param percentile the percentage, in {@code [0, 100]}
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, highestInBucket(i));
+        }
+        return max;
+    }
+
+    private static int index(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) (v >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestInBucket(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long lowest = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
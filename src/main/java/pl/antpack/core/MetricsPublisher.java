@@ -0,0 +1,115 @@
+package pl.antpack.core;
+
+import pl.antpack.core.ACOEngine.SimulationMetrics;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands the progress of an {@link ACOEngine} over to a consumer on another thread without
+ * queueing an update per iteration.
+ *
+ * The publisher listens to the engine and keeps only the latest snapshot: iterations finished
+ * less than the publish interval after the previous snapshot are dropped, and a snapshot the
+ * consumer has not picked up yet is replaced by a newer one. The consumer pulls with
+ * {@link #poll()} whenever it is ready, for example once per frame of the user interface.
+ *
+ * Pheromone levels are copied into one of three preallocated arrays, so publishing allocates
+ * nothing: the engine thread fills the back buffer, swaps it with the published one, and the
+ * consumer swaps its own buffer with the published one when it polls. A snapshot returned by
+ * {@link #poll()} stays untouched until the next call to {@code poll()}.
+ * There must be a single consumer.
+ */
+public class MetricsPublisher implements EngineListener {
+
+    /**
+     * The metrics of one iteration together with the pheromone levels at its end.
+     */
+    public static final class Snapshot {
+        private final double[] pheromones;
+        private SimulationMetrics metrics;
+        private volatile boolean fresh;
+
+        private Snapshot(int size) {
+            this.pheromones = new double[size];
+        }
+
+        public SimulationMetrics metrics() { return metrics; }
+
+        /**
+         * Returns the pheromone levels at the end of the iteration, or an empty array if the
+         * publisher does not copy them. The array is reused, callers must not keep it past the
+         * next {@link MetricsPublisher#poll()}.
+         */
+        public double[] pheromones() { return pheromones; }
+    }
+
+    private final ACOEngine engine;
+    private final long intervalNanos;
+    private final boolean copyPheromones;
+    private final AtomicReference<Snapshot> published;
+    private Snapshot back;
+    private Snapshot front;
+    private SimulationMetrics pending;
+    private long lastPublish;
+
+    /**
+     * @param engine             the engine whose pheromone levels are copied; the publisher still has to be
+     *                           registered with {@link ACOEngine#addListener}
+     * @param minIntervalMillis  the minimal time between two snapshots, 0 publishes every iteration
+     * @param copyPheromones     whether snapshots include the pheromone levels
+     */
+    public MetricsPublisher(ACOEngine engine, long minIntervalMillis, boolean copyPheromones) {
+        if (minIntervalMillis < 0) throw new IllegalArgumentException("minIntervalMillis must not be negative");
+        this.engine = engine;
+        this.intervalNanos = minIntervalMillis * 1_000_000L;
+        this.copyPheromones = copyPheromones;
+        int size = copyPheromones ? engine.getItemCount() : 0;
+        this.published = new AtomicReference<>(new Snapshot(size));
+        this.back = new Snapshot(size);
+        this.front = new Snapshot(size);
+        this.lastPublish = System.nanoTime() - intervalNanos;
+    }
+
+    /**
+     * Publishes the iteration if the publish interval has passed, otherwise remembers it for
+     * {@link #flush()}. Runs on the engine thread.
+     */
+    @Override
+    public void onIteration(SimulationMetrics metrics) {
+        long now = System.nanoTime();
+        if (now - lastPublish < intervalNanos) {
+            pending = metrics;
+            return;
+        }
+        lastPublish = now;
+        publish(metrics);
+    }
+
+    /**
+     * Publishes the last iteration dropped by the rate limit, if any, so the consumer sees the
+     * final state of a run. Must be called on the engine thread or while the engine is idle.
+     */
+    public void flush() {
+        if (pending != null) publish(pending);
+    }
+
+    private void publish(SimulationMetrics metrics) {
+        pending = null;
+        if (copyPheromones) engine.copyPheromones(back.pheromones);
+        back.metrics = metrics;
+        back.fresh = true;
+        back = published.getAndSet(back);
+    }
+
+    /**
+     * Takes the latest snapshot published since the previous call.
+     *
+     * @return the snapshot, or {@code null} if nothing new has been published
+     */
+    public Snapshot poll() {
+        if (!published.get().fresh) return null;
+        front.fresh = false;
+        front = published.getAndSet(front);
+        return front;
+    }
+}
@@ -0,0 +1,45 @@
+package pl.antpack.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted when an {@link ACOEngine} smooths or restarts its pheromone trail after the
+ * colony converged without improving. The duration covers the response itself.
+ */
+@Name("pl.antpack.PheromoneReset")
+@Label("Pheromone Reset")
+@Category({"AntPack", "Engine"})
+@Description("Pheromone trail smoothed or restarted after the colony converged")
+final class PheromoneResetEvent extends jdk.jfr.Event {
+
+    @Label("Colony")
+    int colony;
+
+    @Label("Iteration")
+    int iteration;
+
+    @Label("Stagnant Iterations")
+    @Description("Iterations without a new global best or another response before this one")
+    int stagnantIterations;
+
+    @Label("Response")
+    @Description("smoothing towards the mean level or restart from the global best")
+    String response;
+
+    @Label("Diversity")
+    @Description("Population diversity of the iteration that triggered the response")
+    double diversity;
+
+    @Label("Branching Factor")
+    double branchingFactor;
+
+    @Label("Level")
+    @Description("Pheromone level of the first item after the response")
+    double level;
+
+    @Label("Global Best")
+    int globalBest;
+}
@@ -0,0 +1,306 @@
+package pl.antpack.core;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The pheromone level of every item, evaporated lazily.
+ *
+ * Eager evaporation multiplies and clamps every entry once per iteration, although only the
+ * items of the deposited solutions change otherwise. Here {@link #evaporate()} only advances a
+ * clock; every entry remembers the tick it was last brought up to date and catches up when it is
+ * read or deposited to. Catching up replays the multiply-and-clamp steps one by one, so every
+ * reader sees exactly the value eager evaporation would have produced, and stops early once the
+ * entry reaches a fixed point (in practice the lower clamp), so an entry never costs more than
+ * the few steps it takes to decay to the floor. A change of the evaporation rate or of the clamp
+ * bounds would change the steps still to be replayed, so it first brings all entries up to date.
+ *
+ * The trail also tracks which entries changed since the last {@link #forEachChanged} call, which
+ * lets the {@link AttractivenessTable} skip the entries resting at the floor. Deposits are
+ * partitioned by item range rather than by solution: every worker adds the rewards of all
+ * solutions to its own range of items, in solution order, so workers never write to the same
+ * entry and the result does not depend on the number of workers or on scheduling.
+ *
+ * How the trail changes between iterations is decided by the {@link PheromoneUpdateStrategy} of
+ * the engine, which gets the trail through its public methods. The trail is driven by one thread
+ * at a time. {@link #deposit}, {@link #forEachChanged} and changes of the evaporation rate or of
+ * the bounds run in parallel on the pool of the calling thread, split so that no two workers
+ * touch the same entry.
+ */
+public final class PheromoneTrail {
+
+    /** The default lower clamp applied by evaporation. */
+    public static final double MIN_PHEROMONE = 0.05;
+    /** The default upper clamp applied by evaporation. */
+    public static final double MAX_PHEROMONE = 100.0;
+
+    /** Items per parallel task, a multiple of 64 so that tasks never share a word of the bitsets. */
+    private static final int CHUNK = 4096;
+
+    private final double[] levels;
+    private final int[] stamps;
+    private final long[] changed;
+    private int clock;
+    private double keep;
+    private double min = MIN_PHEROMONE;
+    private double max = MAX_PHEROMONE;
+
+    /**
+     * @param itemCount       the number of items
+     * @param evaporationRate the fraction of pheromone that evaporates in every iteration
+     */
+    PheromoneTrail(int itemCount, double evaporationRate) {
+        this.levels = new double[itemCount];
+        this.stamps = new int[itemCount];
+        this.changed = new long[Solution.wordCount(itemCount)];
+        this.keep = 1.0 - evaporationRate;
+        fill(1.0);
+    }
+
+    /**
+     * @return the number of entries, one per item
+     */
+    public int size() {
+        return levels.length;
+    }
+
+    /**
+     * Sets every entry to the given level.
+     */
+    public void fill(double level) {
+        Arrays.fill(levels, level);
+        Arrays.fill(stamps, clock);
+        markAllChanged();
+    }
+
+    /**
+     * Changes the evaporation rate of the following iterations. All entries are brought up to
+     * date with the old rate first, so a change costs one pass over the trail.
+     */
+    public void setEvaporationRate(double evaporationRate) {
+        double newKeep = 1.0 - evaporationRate;
+        if (Double.compare(newKeep, keep) == 0) return;
+        syncAll();
+        keep = newKeep;
+        markAllChanged();
+    }
+
+    /**
+     * Changes the range every entry is clamped to after it evaporates. All entries are brought up
+     * to date with the old bounds first, so a change costs one pass over the trail; entries
+     * outside the new range are clamped by their next evaporation.
+     *
+     * @param min the lower bound, positive so that decaying entries come to rest
+     * @param max the upper bound, at least {@code min}
+     */
+    public void setBounds(double min, double max) {
+        if (!(min > 0) || !(max >= min)) throw new IllegalArgumentException("bounds must satisfy 0 < min <= max");
+        if (min == this.min && max == this.max) return;
+        syncAll();
+        this.min = min;
+        this.max = max;
+        markAllChanged();
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Evaporates every entry by one iteration. Takes constant time; the entries catch up when read.
+     */
+    public void evaporate() {
+        clock++;
+    }
+
+    /**
+     * @return the current level of the entry
+     */
+    public double get(int i) {
+        sync(i);
+        return levels[i];
+    }
+
+    /**
+     * Adds to one entry.
+     */
+    public void add(int i, double amount) {
+        sync(i);
+        levels[i] += amount;
+        changed[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Adds the rewards of the given solutions to their items, in parallel item ranges and in the
+     * order of the list.
+     *
+     * @param solutions the solutions to reinforce
+     * @param rewards   the reward of every solution, added to each of its items
+     * @param capped    whether entries are clamped to the upper bound right after the deposit, as
+     *                  MAX-MIN requires; otherwise they may exceed it until they next evaporate
+     */
+    public void deposit(List<Solution> solutions, double[] rewards, boolean capped) {
+        int m = solutions.size();
+        parallelChunks((from, to) -> {
+            int fromWord = from >>> 6;
+            int toWord = Solution.wordCount(to);
+            for (int k = 0; k < m; k++) depositRange(solutions.get(k), rewards[k], fromWord, toWord);
+            if (capped) {
+                for (int k = 0; k < m; k++) capRange(solutions.get(k), fromWord, toWord);
+            }
+        });
+    }
+
+    private void capRange(Solution solution, int fromWord, int toWord) {
+        for (int w = fromWord; w < toWord; w++) {
+            for (long word = solution.word(w); word != 0; word &= word - 1) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (levels[i] > max) levels[i] = max;
+            }
+        }
+    }
+
+    private void depositRange(Solution solution, double reward, int fromWord, int toWord) {
+        for (int w = fromWord; w < toWord; w++) {
+            long word = solution.word(w);
+            if (word == 0) continue;
+            changed[w] |= word;
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                sync(i);
+                levels[i] += reward;
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Moves every entry towards another trail: {@code tau = (1 - weight) * tau + weight * source}.
+     */
+    void blend(double[] source, double weight) {
+        for (int i = 0; i < levels.length; i++) {
+            sync(i);
+            levels[i] = (1.0 - weight) * levels[i] + weight * source[i];
+        }
+        markAllChanged();
+    }
+
+    /**
+     * Moves every entry towards the mean level: {@code tau = (1 - weight) * tau + weight * mean}.
+     * The order of the entries, and so what the colony has learned, is kept while the differences
+     * between them shrink.
+     */
+    void smooth(double weight) {
+        syncAll();
+        double mean = Arrays.stream(levels).parallel().sum() / Math.max(1, levels.length);
+        parallelChunks((from, to) -> {
+            for (int i = from; i < to; i++) levels[i] = (1.0 - weight) * levels[i] + weight * mean;
+        });
+        markAllChanged();
+    }
+
+    /**
+     * Counts the entries at or above {@code lo + lambda * (hi - lo)}, where {@code lo} and
+     * {@code hi} are the lowest and highest current levels. Brings all entries up to date and
+     * costs two more parallel passes over the trail; all entries count when they are all equal.
+     */
+    int countBranching(double lambda) {
+        syncAll();
+        DoubleSummaryStatistics observed = Arrays.stream(levels).parallel().summaryStatistics();
+        if (observed.getCount() == 0) return 0;
+        double threshold = observed.getMin() + lambda * (observed.getMax() - observed.getMin());
+        return (int) Arrays.stream(levels).parallel().filter(p -> p >= threshold).count();
+    }
+
+    /**
+     * Copies the current level of every entry into the given array.
+     */
+    void copyTo(double[] target) {
+        for (int i = 0; i < levels.length; i++) {
+            sync(i);
+            target[i] = levels[i];
+        }
+    }
+
+    /**
+     * Calls the action, in parallel item ranges, for every entry that may have changed since the
+     * previous call, after bringing it up to date; the action reads the level with {@link #get}.
+     * An entry stays on the list while it is still decaying and leaves it once it rests at a
+     * fixed point, typically the lower clamp.
+     */
+    void forEachChanged(IntConsumer action) {
+        parallelChunks((from, to) -> {
+            for (int w = from >>> 6, end = Solution.wordCount(to); w < end; w++) {
+                long word = changed[w];
+                long still = word;
+                while (word != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                    sync(i);
+                    action.accept(i);
+                    if (step(levels[i]) == levels[i]) still &= ~(1L << i);
+                    word &= word - 1;
+                }
+                changed[w] = still;
+            }
+        });
+    }
+
+    /**
+     * Marks every entry as changed, so the next {@link #forEachChanged} visits all of them.
+     */
+    void markAllChanged() {
+        int n = levels.length;
+        int full = n >>> 6;
+        for (int w = 0; w < full; w++) changed[w] = -1L;
+        if ((n & 63) != 0) changed[full] = (1L << n) - 1;
+    }
+
+    private void syncAll() {
+        parallelChunks((from, to) -> {
+            for (int i = from; i < to; i++) sync(i);
+        });
+    }
+
+    /**
+     * Replays the evaporation steps the entry missed since it was last brought up to date.
+     */
+    private void sync(int i) {
+        int missed = clock - stamps[i];
+        if (missed == 0) return;
+        double p = levels[i];
+        for (int k = 0; k < missed; k++) {
+            double next = step(p);
+            if (next == p) break;
+            p = next;
+        }
+        levels[i] = p;
+        stamps[i] = clock;
+    }
+
+    /**
+     * One iteration of eager evaporation of a single entry.
+     */
+    private double step(double p) {
+        p *= keep;
+        if (p < min) p = min;
+        if (p > max) p = max;
+        return p;
+    }
+
+    private interface Range {
+        void accept(int from, int to);
+    }
+
+    private void parallelChunks(Range range) {
+        int n = levels.length;
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(c -> range.accept(c * CHUNK, Math.min(n, (c + 1) * CHUNK)));
+    }
+}
@@ -0,0 +1,82 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+import java.util.List;
+
+/**
+ * Decides how the pheromone trail of an {@link ACOEngine} changes between iterations.
+ *
+ * The engine owns the {@link PheromoneTrail} and hands it to the strategy at the start of a run,
+ * after every iteration and whenever a solution from outside the colony (a migrant or a seed)
+ * should be reinforced. A strategy belongs to one engine and is only called from the thread
+ * driving it, so it may keep per-run state such as an archive of solutions.
+ */
+public interface PheromoneUpdateStrategy {
+
+    /**
+     * Sets the initial pheromone levels and clears any state of the previous run. Called when the
+     * engine is created, when it is reset and when stagnation restarts the trail.
+     *
+     * @param trail           the trail of the engine
+     * @param evaporationRate the current evaporation rate of the engine
+     */
+    void initialize(PheromoneTrail trail, double evaporationRate);
+
+    /**
+     * Updates the trail after the ants of an iteration have built their solutions.
+     *
+     * @param trail           the trail of the engine
+     * @param solutions       the solutions of the iteration, after local search
+     * @param iterationBest   the best of {@code solutions}
+     * @param globalBest      the best solution found so far, already including {@code iterationBest}
+     * @param evaporationRate the current evaporation rate of the engine, which may change between iterations
+     */
+    void update(PheromoneTrail trail, List<Solution> solutions, Solution iterationBest, Solution globalBest,
+                double evaporationRate);
+
+    /**
+     * Reinforces a solution that did not come from the ants of this colony.
+     *
+     * @param trail    the trail of the engine
+     * @param solution a solution migrated from another colony or given as a starting point
+     */
+    void reinforce(PheromoneTrail trail, Solution solution);
+
+    /**
+     * Moves every entry part of the way towards the mean level, after the colony converged
+     * without improving. By default the trail is smoothed directly; a strategy whose levels are
+     * derived from its own state must keep them consistent with it, or decline.
+     *
+     * @param trail  the trail of the engine
+     * @param weight the share of the mean level mixed into every entry, in {@code [0, 1]}
+     * @return {@code false} if the strategy cannot smooth its trail, in which case the engine
+     *         restarts it with {@link #initialize} instead
+     */
+    default boolean smooth(PheromoneTrail trail, double weight) {
+        trail.smooth(weight);
+        return true;
+    }
+
+    /**
+     * @return whether the trail may be blended with the trails of other colonies, see
+     *         {@link ACOEngine#blendPheromones}; {@code false} if the levels are derived from
+     *         state of the strategy that a blend would not update
+     */
+    default boolean supportsBlending() {
+        return true;
+    }
+
+    /**
+     * Creates a strategy for one engine.
+     */
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * @param items      the items of the instance
+         * @param capacity   the knapsack capacity
+         * @param upperBound an upper bound on the optimal value, for scaling rewards to the instance
+         */
+        PheromoneUpdateStrategy create(ItemColumns items, int capacity, long upperBound);
+    }
+}
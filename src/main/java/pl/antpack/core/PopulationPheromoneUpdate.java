@@ -0,0 +1,148 @@
+package pl.antpack.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Population-based ACO (P-ACO): the trail is derived from an archive of the last good solutions
+ * instead of being evaporated.
+ *
+ * Every entry is {@code initial + delta * c}, where {@code c} is the number of archived solutions
+ * that pack the item. After every iteration the iteration best solution enters the archive:
+ * entering adds {@code delta} to its items and leaving subtracts it again, so an update costs
+ * time proportional to the items of the two solutions and nothing is ever evaporated. The
+ * evaporation rate of the engine is ignored. With the default {@code delta} of 1 all levels
+ * are small integers and additions and removals cancel exactly.
+ *
+ * Once the archive is full, {@link Archive#FIFO} replaces the oldest solution, while
+ * {@link Archive#QUALITY} replaces the worst one and only if the newcomer is better; a
+ * solution already in a quality archive is not added twice. Migrants and seeds are offered to
+ * the archive like iteration best solutions. The trail must not be changed behind the archive's
+ * back, so smoothing is declined and trails of other colonies are not blended in.
+ */
+public class PopulationPheromoneUpdate implements PheromoneUpdateStrategy {
+
+    /**
+     * Which solution leaves a full archive.
+     */
+    public enum Archive {
+        /** The oldest solution leaves. */
+        FIFO,
+        /** The worst solution leaves, if the newcomer is better. */
+        QUALITY
+    }
+
+    /** Default number of archived solutions. */
+    public static final int DEFAULT_ARCHIVE_SIZE = 10;
+    /** Default pheromone added by every archived solution to each of its items. */
+    public static final double DEFAULT_DELTA = 1.0;
+
+    private static final double INITIAL_LEVEL = 1.0;
+
+    private final int archiveSize;
+    private final Archive policy;
+    private final double delta;
+    private final List<Solution> archive;
+
+    /**
+     * @param archiveSize the number of archived solutions
+     * @param policy      which solution leaves a full archive
+     * @param delta       the pheromone added by every archived solution to each of its items; the
+     *                    highest possible level {@code 1 + archiveSize * delta} must stay within
+     *                    {@link PheromoneTrail#MAX_PHEROMONE}
+     */
+    public PopulationPheromoneUpdate(int archiveSize, Archive policy, double delta) {
+        validate(archiveSize, policy, delta);
+        this.archiveSize = archiveSize;
+        this.policy = policy;
+        this.delta = delta;
+        this.archive = new ArrayList<>(archiveSize);
+    }
+
+    /**
+     * @return a factory creating the update with the given archive and the {@link #DEFAULT_DELTA}
+     * @throws IllegalArgumentException if the archive size is not positive or too large
+     */
+    public static Factory factory(int archiveSize, Archive policy) {
+        validate(archiveSize, policy, DEFAULT_DELTA);
+        return (items, capacity, upperBound) -> new PopulationPheromoneUpdate(archiveSize, policy, DEFAULT_DELTA);
+    }
+
+    private static void validate(int archiveSize, Archive policy, double delta) {
+        if (archiveSize < 1) throw new IllegalArgumentException("archiveSize must be positive");
+        if (policy == null) throw new IllegalArgumentException("policy must not be null");
+        if (!(delta > 0) || INITIAL_LEVEL + archiveSize * delta > PheromoneTrail.MAX_PHEROMONE) {
+            throw new IllegalArgumentException("delta must be positive and archiveSize * delta at most "
+                    + (PheromoneTrail.MAX_PHEROMONE - INITIAL_LEVEL));
+        }
+    }
+
+    @Override
+    public void initialize(PheromoneTrail trail, double evaporationRate) {
+        archive.clear();
+        trail.setEvaporationRate(0.0);
+        trail.fill(INITIAL_LEVEL);
+    }
+
+    @Override
+    public void update(PheromoneTrail trail, List<Solution> solutions, Solution iterationBest, Solution globalBest,
+                       double evaporationRate) {
+        offer(trail, iterationBest);
+    }
+
+    @Override
+    public void reinforce(PheromoneTrail trail, Solution solution) {
+        offer(trail, solution);
+    }
+
+    /**
+     * Declines: every level must stay {@code 1 + delta * c}, so a smoothed entry would later
+     * lose more than it holds when its archived solutions leave. The engine restarts the archive
+     * from the best solution instead.
+     */
+    @Override
+    public boolean smooth(PheromoneTrail trail, double weight) {
+        return false;
+    }
+
+    /**
+     * @return {@code false}: a blended entry would later lose more than it holds when its
+     *         archived solutions leave
+     */
+    @Override
+    public boolean supportsBlending() {
+        return false;
+    }
+
+    /**
+     * @return the number of solutions in the archive
+     */
+    public int size() {
+        return archive.size();
+    }
+
+    private void offer(PheromoneTrail trail, Solution solution) {
+        if (policy == Archive.QUALITY && archive.contains(solution)) return;
+        if (archive.size() == archiveSize) {
+            int leaving = policy == Archive.FIFO ? 0 : worst();
+            if (policy == Archive.QUALITY && solution.getValue() <= archive.get(leaving).getValue()) return;
+            apply(trail, archive.remove(leaving), -delta);
+        }
+        archive.add(solution);
+        apply(trail, solution, delta);
+    }
+
+    private int worst() {
+        int worst = 0;
+        for (int k = 1; k < archive.size(); k++) {
+            if (archive.get(k).getValue() < archive.get(worst).getValue()) worst = k;
+        }
+        return worst;
+    }
+
+    private static void apply(PheromoneTrail trail, Solution solution, double amount) {
+        for (int id = solution.nextSelected(0); id >= 0; id = solution.nextSelected(id + 1)) {
+            trail.add(id, amount);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+/**
+ * Reduces an instance to its core before the colony is run.
+ *
+ * A greedy solution in efficiency order gives a lower bound {@code LB}. The LP relaxation is
+ * solved around the break item {@code s}, with {@code r = p_s / w_s} the critical efficiency. Forcing
+ * item {@code j} away from its LP value lowers the LP optimum by at least {@code |p_j - r * w_j|}
+ * (the Dembo–Hammer bound). If that bound drops below {@code LB}, no solution at least as good as
+ * the greedy one can flip item {@code j}, so the item is fixed: packed if it precedes the break
+ * item, left out otherwise. Items heavier than the capacity left after fixing are left out too.
+ * If the greedy solution already reaches the rounded-down LP bound, it is optimal and every item is fixed.
+ *
+ * The remaining core items form a smaller instance with the capacity reduced by the weight of the
+ * packed items. Solutions of the core are mapped back to the original item ids with
+ * {@link #expand(Solution)}. Items far from the break efficiency are fixed, so on large instances
+ * the core is usually a small fraction of the items.
+ */
+public final class ProblemReduction {
+
+    private final ProblemInstance original;
+    private final ProblemInstance core;
+    private final int[] coreToOriginal;
+    private final long[] fixedWords;
+    private final int fixedValue;
+    private final int fixedWeight;
+    private final Solution incumbent;
+
+    private ProblemReduction(ProblemInstance original, ProblemInstance core, int[] coreToOriginal,
+                             long[] fixedWords, int fixedValue, int fixedWeight, Solution incumbent) {
+        this.original = original;
+        this.core = core;
+        this.coreToOriginal = coreToOriginal;
+        this.fixedWords = fixedWords;
+        this.fixedValue = fixedValue;
+        this.fixedWeight = fixedWeight;
+        this.incumbent = incumbent;
+    }
+
+    /**
+     * Runs the reduction tests on the instance.
+     *
+     * @param instance the instance to reduce
+     * @return the reduction; its core may be empty, in which case {@link #incumbent()} is optimal
+     */
+    public static ProblemReduction reduce(ProblemInstance instance) {
+        ItemColumns items = instance.items();
+        int n = items.size();
+        int capacity = instance.capacity();
+        int[] byEfficiency = ItemOrder.byEfficiencyDescending(items);
+
+        // Greedy lower bound and the LP solution around the break item.
+        long[] greedyWords = new long[Solution.wordCount(n)];
+        int greedyValue = 0;
+        int greedyWeight = 0;
+        int breakItem = -1;
+        double lpValue = 0;
+        long lpBound = 0;
+        int lpResidual = capacity;
+        for (int id : byEfficiency) {
+            int weight = items.weight(id);
+            if (weight > capacity) continue;
+            if (breakItem < 0) {
+                if (weight <= lpResidual) {
+                    lpResidual -= weight;
+                    lpValue += items.value(id);
+                    lpBound += items.value(id);
+                } else {
+                    breakItem = id;
+                    lpValue += (double) lpResidual * items.value(id) / weight;
+                    lpBound += (long) lpResidual * items.value(id) / weight;
+                }
+            }
+            if (weight <= capacity - greedyWeight) {
+                greedyWords[id >>> 6] |= 1L << id;
+                greedyValue += items.value(id);
+                greedyWeight += weight;
+            }
+        }
+        Solution greedy = new Solution(greedyWords, greedyValue, greedyWeight);
+
+        // 0 = core, 1 = fixed in, -1 = fixed out
+        byte[] state = new byte[n];
+        if (breakItem < 0 || greedyValue >= lpBound) {
+            // The greedy solution is optimal: either every item that fits on its own fits together
+            // with all the others, or the greedy value reaches the LP bound.
+            for (int id = 0; id < n; id++) state[id] = (byte) (greedy.contains(id) ? 1 : -1);
+        } else {
+            double ratio = (double) items.value(breakItem) / items.weight(breakItem);
+            // Guards the strict comparison against rounding, fixing fewer items rather than too many.
+            double threshold = greedyValue - 1e-9 * Math.max(1.0, lpValue);
+            boolean beforeBreak = true;
+            for (int id : byEfficiency) {
+                if (id == breakItem) beforeBreak = false;
+                if (items.weight(id) > capacity) {
+                    state[id] = -1;
+                } else if (id != breakItem
+                        && lpValue - Math.abs(items.value(id) - ratio * items.weight(id)) < threshold) {
+                    state[id] = (byte) (beforeBreak ? 1 : -1);
+                }
+            }
+        }
+
+        long[] fixedWords = new long[Solution.wordCount(n)];
+        int fixedValue = 0;
+        int fixedWeight = 0;
+        for (int id = 0; id < n; id++) {
+            if (state[id] == 1) {
+                fixedWords[id >>> 6] |= 1L << id;
+                fixedValue += items.value(id);
+                fixedWeight += items.weight(id);
+            }
+        }
+        int coreCapacity = capacity - fixedWeight;
+
+        int coreSize = 0;
+        for (int id = 0; id < n; id++) {
+            if (state[id] == 0 && items.weight(id) <= coreCapacity) coreSize++;
+        }
+        int[] coreToOriginal = new int[coreSize];
+        int[] weights = new int[coreSize];
+        int[] values = new int[coreSize];
+        int k = 0;
+        for (int id = 0; id < n; id++) {
+            if (state[id] == 0 && items.weight(id) <= coreCapacity) {
+                coreToOriginal[k] = id;
+                weights[k] = items.weight(id);
+                values[k] = items.value(id);
+                k++;
+            }
+        }
+
+        ProblemInstance core = new ProblemInstance(new ItemColumns(weights, values), coreCapacity);
+        return new ProblemReduction(instance, core, coreToOriginal, fixedWords, fixedValue, fixedWeight, greedy);
+    }
+
+    /**
+     * @return the instance left after fixing variables; item {@code i} of the core is item
+     *         {@link #originalId(int) originalId(i)} of the original instance
+     */
+    public ProblemInstance core() {
+        return core;
+    }
+
+    public ProblemInstance original() {
+        return original;
+    }
+
+    public int originalId(int coreId) {
+        return coreToOriginal[coreId];
+    }
+
+    /**
+     * @return the number of items fixed by the reduction, packed or not
+     */
+    public int fixedCount() {
+        return original.items().size() - core.items().size();
+    }
+
+    /**
+     * @return the total value of the items fixed as packed
+     */
+    public int fixedValue() {
+        return fixedValue;
+    }
+
+    /**
+     * @return the greedy solution of the original instance used as the lower bound
+     */
+    public Solution incumbent() {
+        return incumbent;
+    }
+
+    /**
+     * @return {@code true} if the core is empty, which makes the {@link #incumbent()} optimal
+     */
+    public boolean isSolved() {
+        return core.items().size() == 0;
+    }
+
+    /**
+     * Maps a solution of the core back to the original instance by adding the items fixed as packed.
+     * Returns the {@link #incumbent()} instead if it is better, so the result is never worse than greedy.
+     *
+     * @param coreSolution a solution of {@link #core()}, or {@code null}
+     * @return the corresponding solution of the original instance
+     */
+    public Solution expand(Solution coreSolution) {
+        if (coreSolution == null) return incumbent;
+        long[] words = fixedWords.clone();
+        for (int id = coreSolution.nextSelected(0); id >= 0; id = coreSolution.nextSelected(id + 1)) {
+            int originalId = coreToOriginal[id];
+            words[originalId >>> 6] |= 1L << originalId;
+        }
+        Solution expanded = new Solution(words, fixedValue + coreSolution.getValue(),
+                fixedWeight + coreSolution.getWeight());
+        return expanded.getValue() >= incumbent.getValue() ? expanded : incumbent;
+    }
+
+    /**
+     * Maps the result of a run on the core back to the original instance, see {@link #expand(Solution)}.
+     */
+    public SolveResult expand(SolveResult coreResult) {
+        return new SolveResult(expand(coreResult.best()), coreResult.iterations(),
+                coreResult.elapsedMillis(), coreResult.stopReason());
+    }
+
+    /**
+     * Translates a configuration for the original instance into one for the core: the target
+     * value is reduced by the value of the items fixed as packed.
+     */
+    public SolverConfig adapt(SolverConfig config) {
+        if (config.getTargetValue() == 0) return config;
+        return config.toBuilder()
+                .targetValue(Math.max(1, config.getTargetValue() - fixedValue))
+                .build();
+    }
+}
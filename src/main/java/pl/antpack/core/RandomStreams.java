@@ -0,0 +1,86 @@
+package pl.antpack.core;
+
+/**
+ * Deterministic derivation of independent random streams from a master seed.
+ *
+ * Every ant in every iteration gets a stream whose seed depends only on the master seed,
+ * the iteration number and the ant index, so a run is reproducible no matter which worker
+ * thread happens to build which ant. The generator is SplitMix64, the algorithm behind
+ * {@link java.util.SplittableRandom}, kept as a reseedable object so that a thread can reuse
+ * one instance for all the ants it builds instead of allocating a generator per ant.
+ */
+public final class RandomStreams {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final long SECOND_GAMMA = 0xbf58476d1ce4e5b9L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    public RandomStreams(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Derives the seed of a sub-stream, e.g. of one island or worker process.
+     *
+     * @param masterSeed the seed of the parent stream
+     * @param index      the index of the sub-stream
+     * @return a well-mixed seed, different for every index
+     */
+    public static long derive(long masterSeed, long index) {
+        return mix64(masterSeed + GOLDEN_GAMMA * (index + 1));
+    }
+
+    /**
+     * Derives the seed of the stream used by one ant in one iteration.
+     *
+     * @param masterSeed the seed of the run
+     * @param iteration  the iteration number
+     * @param ant        the ant index within the iteration
+     * @return the seed of the ant's stream
+     */
+    public static long forAnt(long masterSeed, int iteration, int ant) {
+        return mix64(derive(masterSeed, iteration) + SECOND_GAMMA * (ant + 1));
+    }
+
+    /**
+     * Restarts the stream from the given seed.
+     */
+    public void reseed(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return a uniformly distributed value in {@code [0, 1)}
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param bound the exclusive upper bound, must be positive
+     * @return a uniformly distributed value in {@code [0, bound)}
+     */
+    public int nextInt(int bound) {
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+            // reject values from the incomplete last interval
+        }
+        return r;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
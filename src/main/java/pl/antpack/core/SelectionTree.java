@@ -0,0 +1,129 @@
+package pl.antpack.core;
+
+import java.util.Arrays;
+
+/**
+ * A sum segment tree over item attractiveness used for roulette-wheel selection.
+ *
+ * Leaf {@code i} holds the (non-negative) selection weight of item {@code i} and every inner
+ * node holds the sum of its two children. Sampling an item proportionally to its weight and
+ * removing an item from the wheel both take O(log n). Inner sums are always recomputed from
+ * the children instead of being adjusted by subtraction, so repeated removals do not
+ * accumulate floating-point drift and a removed item can never be drawn again.
+ *
+ * The wheel can also be restricted to its first leaves with {@link #rebuild(int)}, which
+ * rebuilds and samples only the subtree covering them, so a wheel sized for the whole
+ * instance can serve a short candidate list without touching the other leaves.
+ */
+final class SelectionTree {
+
+    private final int leaves;
+    private final double[] sums;
+    private int root = 1;
+
+    /**
+     * Creates an empty tree able to hold the given number of items.
+     *
+     * @param size the number of items (leaves) the tree has to address
+     */
+    SelectionTree(int size) {
+        int l = 1;
+        while (l < size) l <<= 1;
+        this.leaves = l;
+        this.sums = new double[2 * l];
+    }
+
+    /**
+     * Sets the weight of a leaf without updating its ancestors. Must be followed by
+     * {@link #rebuild()} before the tree is sampled.
+     *
+     * @param index  the item index
+     * @param weight the non-negative selection weight
+     */
+    void setLeaf(int index, double weight) {
+        sums[leaves + index] = weight;
+    }
+
+    /**
+     * Recomputes every inner node from the leaves in O(n).
+     */
+    void rebuild() {
+        for (int node = leaves - 1; node >= 1; node--) {
+            sums[node] = sums[node << 1] + sums[(node << 1) + 1];
+        }
+        root = 1;
+    }
+
+    /**
+     * Restricts the wheel to the first {@code size} leaves and recomputes the inner nodes above
+     * them in O(size). The leaves from {@code size} up to the next power of two are cleared;
+     * the leaves beyond are ignored until the next full {@link #rebuild()}.
+     *
+     * @param size the number of leaves to keep on the wheel, set with {@link #setLeaf} beforehand
+     */
+    void rebuild(int size) {
+        int span = 1;
+        while (span < size) span <<= 1;
+        Arrays.fill(sums, leaves + size, leaves + span, 0.0);
+        for (int first = leaves >> 1, count = span >> 1; count >= 1; first >>= 1, count >>= 1) {
+            for (int node = first; node < first + count; node++) {
+                sums[node] = sums[node << 1] + sums[(node << 1) + 1];
+            }
+        }
+        root = leaves / span;
+    }
+
+    /**
+     * Clears all leaves and inner nodes.
+     */
+    void clear() {
+        Arrays.fill(sums, 0.0);
+    }
+
+    /**
+     * Removes an item from the wheel by zeroing its leaf and refreshing the path to the root of
+     * the restricted wheel, if {@link #rebuild(int)} restricted it.
+     *
+     * @param index the item index
+     */
+    void remove(int index) {
+        int node = leaves + index;
+        if (sums[node] == 0.0) return;
+        sums[node] = 0.0;
+        node >>= 1;
+        while (node >= root) {
+            sums[node] = sums[node << 1] + sums[(node << 1) + 1];
+            node >>= 1;
+        }
+    }
+
+    /**
+     * @return the sum of the weights of all items still on the wheel
+     */
+    double total() {
+        return sums[root];
+    }
+
+    /**
+     * Finds the item whose cumulative weight interval contains {@code pick}.
+     * The descent never enters a subtree with zero weight, so the returned item always
+     * has a positive weight as long as {@link #total()} is positive.
+     *
+     * @param pick a point in {@code [0, total())}
+     * @return the index of the selected item
+     */
+    int sample(double pick) {
+        int node = root;
+        while (node < leaves) {
+            int left = node << 1;
+            double leftSum = sums[left];
+            if (pick < leftSum || sums[left + 1] <= 0.0) {
+                node = left;
+            } else {
+                pick -= leftSum;
+                node = left + 1;
+            }
+        }
+        return node - leaves;
+    }
+}
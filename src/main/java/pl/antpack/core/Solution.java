@@ -1,25 +1,166 @@
 package pl.antpack.core;
 
-import pl.antpack.model.Item;
-import java.util.List;
+import pl.antpack.model.ItemColumns;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /**
+ * An immutable knapsack solution stored as a bitset over item ids.
  *
+ * Bit {@code i} of the {@code long[]} words is set when item {@code i} is packed. The total value,
+ * the total weight, the number of packed items and a 64-bit hash are computed once, so comparing,
+ * deduplicating and reporting solutions never has to walk the items again. A solution for
+ * {@code n} items takes {@code n / 8} bytes, an order of magnitude less than a list of items.
  */
 public class Solution {
-    private final List<Item> items;
+    private final long[] words;
     private final int value;
+    private final int weight;
+    private final int size;
+    private final long hash;
 
-    public Solution(List<Item> items, int value) {
-        this.items = items;
+    /**
+     * Wraps the given bitset. The array is taken over by the solution and must not be modified afterwards.
+     *
+     * @param words  the bitset of packed item ids, {@code ceil(n / 64)} words long
+     * @param value  the total value of the packed items
+     * @param weight the total weight of the packed items
+     */
+    public Solution(long[] words, int value, int weight) {
+        this.words = words;
         this.value = value;
+        this.weight = weight;
+        int count = 0;
+        long h = 0x2545f4914f6cdd1dL ^ words.length;
+        for (long word : words) {
+            count += Long.bitCount(word);
+            h = Long.rotateLeft(h ^ word, 27) * 0x9e3779b97f4a7c15L;
+        }
+        this.size = count;
+        this.hash = h ^ (h >>> 31);
+    }
+
+    /**
+     * Builds a solution from a list of item ids, computing value and weight from the item columns.
+     *
+     * @param items the instance the ids refer to
+     * @param ids   the ids of the packed items
+     * @param count the number of valid entries in {@code ids}
+     * @return the solution
+     */
+    public static Solution of(ItemColumns items, int[] ids, int count) {
+        long[] words = new long[wordCount(items.size())];
+        int value = 0;
+        int weight = 0;
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            words[id >>> 6] |= 1L << id;
+            value += items.value(id);
+            weight += items.weight(id);
+        }
+        return new Solution(words, value, weight);
     }
 
-    public List<Item> getItems() {
-        return items;
+    /**
+     * @return the number of 64-bit words needed for a bitset over {@code itemCount} items
+     */
+    public static int wordCount(int itemCount) {
+        return (itemCount + 63) >>> 6;
     }
 
     public int getValue() {
         return value;
     }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of packed items
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns the first packed item id at or after {@code from}. Iterating with
+     * {@code for (int id = s.nextSelected(0); id >= 0; id = s.nextSelected(id + 1))}
+     * visits all packed items in increasing order without allocating.
+     *
+     * @param from the id to start from
+     * @return the next packed id, or -1 if there is none
+     */
+    public int nextSelected(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) return -1;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length) return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * @return word {@code index} of the bitset, item ids {@code 64 * index} to {@code 64 * index + 63}
+     */
+    long word(int index) {
+        return words[index];
+    }
+
+    /**
+     * Calls the action for every packed item id in increasing order.
+     */
+    public void forEachSelected(IntConsumer action) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the number of items packed in exactly one of the two solutions
+     */
+    public int hammingDistance(Solution other) {
+        int distance = 0;
+        for (int i = 0; i < words.length; i++) {
+            distance += Long.bitCount(words[i] ^ other.words[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * @return a 64-bit hash of the packed item set
+     */
+    public long hash64() {
+        return hash;
+    }
+
+    /**
+     * Returns a copy of the bitset, e.g. for serialization.
+     */
+    public long[] toWords() {
+        return words.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Solution other)) return false;
+        return hash == other.hash && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
 }
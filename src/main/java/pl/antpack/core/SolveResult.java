@@ -0,0 +1,11 @@
+package pl.antpack.core;
+
+/**
+ * The outcome of a synchronous {@link ACOEngine#solve} call.
+ *
+ * @param best          the best solution found, or {@code null} if no iteration was run
+ * @param iterations    the number of iterations performed
+ * @param elapsedMillis the wall-clock duration of the run in milliseconds
+ * @param stopReason    the criterion that ended the run
+ */
+public record SolveResult(Solution best, int iterations, long elapsedMillis, StopReason stopReason) {}
@@ -0,0 +1,265 @@
+package pl.antpack.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable set of parameters for a single run of the {@link ACOEngine}.
+ * Instances are created through {@link #builder()}; every parameter has a default
+ * matching the initial position of the sliders in the user interface.
+ */
+public final class SolverConfig {
+
+    private final double alpha;
+    private final double beta;
+    private final double evaporationRate;
+    private final int antCount;
+    private final int maxIterations;
+    private final int parallelism;
+    private final long seed;
+    private final long targetValue;
+    private final long timeLimitMillis;
+    private final int maxIterationsWithoutImprovement;
+    private final boolean stopAtOptimum;
+    private final int localSearchCount;
+    private final long localSearchBudgetMillis;
+    private final LocalSearch.Factory localSearch;
+    private final PheromoneUpdateStrategy.Factory pheromoneUpdate;
+    private final int candidateListSize;
+    private final int candidateListRefresh;
+    private final boolean profiling;
+
+    private SolverConfig(Builder builder) {
+        this.alpha = builder.alpha;
+        this.beta = builder.beta;
+        this.evaporationRate = builder.evaporationRate;
+        this.antCount = builder.antCount;
+        this.maxIterations = builder.maxIterations;
+        this.parallelism = builder.parallelism;
+        this.seed = builder.seed != null ? builder.seed : ThreadLocalRandom.current().nextLong();
+        this.targetValue = builder.targetValue;
+        this.timeLimitMillis = builder.timeLimitMillis;
+        this.maxIterationsWithoutImprovement = builder.maxIterationsWithoutImprovement;
+        this.stopAtOptimum = builder.stopAtOptimum;
+        this.localSearchCount = builder.localSearchCount;
+        this.localSearchBudgetMillis = builder.localSearchBudgetMillis;
+        this.localSearch = builder.localSearch;
+        this.pheromoneUpdate = builder.pheromoneUpdate;
+        this.candidateListSize = builder.candidateListSize;
+        this.candidateListRefresh = builder.candidateListRefresh;
+        this.profiling = builder.profiling;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a configuration with every parameter at its default value
+     */
+    public static SolverConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * @return a builder initialized with the parameters of this configuration
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .alpha(alpha)
+                .beta(beta)
+                .evaporationRate(evaporationRate)
+                .antCount(antCount)
+                .maxIterations(maxIterations)
+                .parallelism(parallelism)
+                .seed(seed)
+                .targetValue(targetValue)
+                .timeLimitMillis(timeLimitMillis)
+                .maxIterationsWithoutImprovement(maxIterationsWithoutImprovement)
+                .stopAtOptimum(stopAtOptimum)
+                .localSearchCount(localSearchCount)
+                .localSearchBudgetMillis(localSearchBudgetMillis)
+                .localSearch(localSearch)
+                .pheromoneUpdate(pheromoneUpdate)
+                .candidateListSize(candidateListSize)
+                .candidateListRefresh(candidateListRefresh)
+                .profiling(profiling);
+    }
+
+    public double getAlpha() { return alpha; }
+    public double getBeta() { return beta; }
+    public double getEvaporationRate() { return evaporationRate; }
+    public int getAntCount() { return antCount; }
+    /** @return the iteration limit of {@link ACOEngine#run()}, or 0 when the run is unbounded */
+    public int getMaxIterations() { return maxIterations; }
+    /** @return the number of worker threads, or 0 to use the common fork-join pool */
+    public int getParallelism() { return parallelism; }
+    /**
+     * @return the master seed of the run; chosen randomly when the builder was not given one,
+     *         so that every run can still be reproduced from its reported seed
+     */
+    public long getSeed() { return seed; }
+    /** @return the value at which a run ends early, or 0 for none */
+    public long getTargetValue() { return targetValue; }
+    /** @return the wall-clock budget of a run in milliseconds, or 0 for none */
+    public long getTimeLimitMillis() { return timeLimitMillis; }
+    /** @return the number of iterations without a new best solution after which a run ends, or 0 for none */
+    public int getMaxIterationsWithoutImprovement() { return maxIterationsWithoutImprovement; }
+    /** @return whether a run ends as soon as the best solution reaches the upper bound */
+    public boolean isStopAtOptimum() { return stopAtOptimum; }
+    /** @return how many of the best solutions of every iteration are improved by local search, 0 to disable it */
+    public int getLocalSearchCount() { return localSearchCount; }
+    /**
+     * @return the wall-clock budget of the local search per iteration, or 0 for no limit; with a
+     *         limit the outcome depends on machine speed, so seeded runs are no longer reproducible
+     */
+    public long getLocalSearchBudgetMillis() { return localSearchBudgetMillis; }
+    /** @return the factory of the local search, {@link KnapsackLocalSearch} with all moves by default */
+    public LocalSearch.Factory getLocalSearch() { return localSearch; }
+    /** @return the factory of the pheromone update, {@link ClassicPheromoneUpdate} by default */
+    public PheromoneUpdateStrategy.Factory getPheromoneUpdate() { return pheromoneUpdate; }
+    /**
+     * @return the number of most attractive items the ants draw from before the other items, or 0
+     *         to draw from all items, see {@link CandidateList}
+     */
+    public int getCandidateListSize() { return candidateListSize; }
+    /** @return the number of iterations between two selections of the candidate list */
+    public int getCandidateListRefresh() { return candidateListRefresh; }
+    /** @return whether the engine records per-phase timings, see {@link EngineProfiler} */
+    public boolean isProfiling() { return profiling; }
+
+    public static final class Builder {
+        private double alpha = 1.0;
+        private double beta = 2.0;
+        private double evaporationRate = 0.5;
+        private int antCount = 50;
+        private int maxIterations = 0;
+        private int parallelism = 0;
+        private Long seed = null;
+        private long targetValue = 0;
+        private long timeLimitMillis = 0;
+        private int maxIterationsWithoutImprovement = 0;
+        private boolean stopAtOptimum = true;
+        private int localSearchCount = 0;
+        private long localSearchBudgetMillis = 0;
+        private LocalSearch.Factory localSearch = KnapsackLocalSearch::new;
+        private PheromoneUpdateStrategy.Factory pheromoneUpdate = (items, capacity, upperBound) -> new ClassicPheromoneUpdate();
+        private int candidateListSize = 0;
+        private int candidateListRefresh = 10;
+        private boolean profiling = false;
+
+        private Builder() {}
+
+        public Builder alpha(double alpha) {
+            this.alpha = alpha;
+            return this;
+        }
+
+        public Builder beta(double beta) {
+            this.beta = beta;
+            return this;
+        }
+
+        public Builder evaporationRate(double evaporationRate) {
+            this.evaporationRate = evaporationRate;
+            return this;
+        }
+
+        public Builder antCount(int antCount) {
+            this.antCount = antCount;
+            return this;
+        }
+
+        public Builder maxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public Builder targetValue(long targetValue) {
+            this.targetValue = targetValue;
+            return this;
+        }
+
+        public Builder timeLimitMillis(long timeLimitMillis) {
+            this.timeLimitMillis = timeLimitMillis;
+            return this;
+        }
+
+        public Builder maxIterationsWithoutImprovement(int maxIterationsWithoutImprovement) {
+            this.maxIterationsWithoutImprovement = maxIterationsWithoutImprovement;
+            return this;
+        }
+
+        public Builder stopAtOptimum(boolean stopAtOptimum) {
+            this.stopAtOptimum = stopAtOptimum;
+            return this;
+        }
+
+        public Builder localSearchCount(int localSearchCount) {
+            this.localSearchCount = localSearchCount;
+            return this;
+        }
+
+        public Builder localSearchBudgetMillis(long localSearchBudgetMillis) {
+            this.localSearchBudgetMillis = localSearchBudgetMillis;
+            return this;
+        }
+
+        public Builder localSearch(LocalSearch.Factory localSearch) {
+            this.localSearch = localSearch;
+            return this;
+        }
+
+        public Builder pheromoneUpdate(PheromoneUpdateStrategy.Factory pheromoneUpdate) {
+            this.pheromoneUpdate = pheromoneUpdate;
+            return this;
+        }
+
+        public Builder candidateListSize(int candidateListSize) {
+            this.candidateListSize = candidateListSize;
+            return this;
+        }
+
+        public Builder candidateListRefresh(int candidateListRefresh) {
+            this.candidateListRefresh = candidateListRefresh;
+            return this;
+        }
+
+        public Builder profiling(boolean profiling) {
+            this.profiling = profiling;
+            return this;
+        }
+
+        public SolverConfig build() {
+            if (antCount < 1) throw new IllegalArgumentException("antCount must be positive");
+            if (evaporationRate < 0 || evaporationRate > 1) {
+                throw new IllegalArgumentException("evaporationRate must be in [0, 1]");
+            }
+            if (maxIterations < 0) throw new IllegalArgumentException("maxIterations must not be negative");
+            if (parallelism < 0) throw new IllegalArgumentException("parallelism must not be negative");
+            if (targetValue < 0) throw new IllegalArgumentException("targetValue must not be negative");
+            if (timeLimitMillis < 0) throw new IllegalArgumentException("timeLimitMillis must not be negative");
+            if (maxIterationsWithoutImprovement < 0) {
+                throw new IllegalArgumentException("maxIterationsWithoutImprovement must not be negative");
+            }
+            if (localSearchCount < 0) throw new IllegalArgumentException("localSearchCount must not be negative");
+            if (localSearchBudgetMillis < 0) {
+                throw new IllegalArgumentException("localSearchBudgetMillis must not be negative");
+            }
+            if (localSearch == null) throw new IllegalArgumentException("localSearch must not be null");
+            if (pheromoneUpdate == null) throw new IllegalArgumentException("pheromoneUpdate must not be null");
+            if (candidateListSize < 0) throw new IllegalArgumentException("candidateListSize must not be negative");
+            if (candidateListRefresh < 1) throw new IllegalArgumentException("candidateListRefresh must be positive");
+            return new SolverConfig(this);
+        }
+    }
+}
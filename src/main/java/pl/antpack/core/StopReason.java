@@ -0,0 +1,20 @@
+package pl.antpack.core;
+
+/**
+ * Why a run ended. The constants are ordered from the most to the least conclusive, which is
+ * how solvers combining several colonies pick the reason they report.
+ */
+public enum StopReason {
+    /** The best solution reached the upper bound, so it is provably optimal. */
+    OPTIMAL,
+    /** The best solution reached the configured target value. */
+    TARGET_REACHED,
+    /** The configured wall-clock budget was used up. */
+    TIME_LIMIT,
+    /** The configured number of iterations was performed. */
+    ITERATION_LIMIT,
+    /** The best solution did not improve for the configured number of iterations. */
+    NO_IMPROVEMENT,
+    /** The run was stopped from outside. */
+    STOPPED
+}
@@ -0,0 +1,88 @@
+package pl.antpack.core;
+
+import pl.antpack.model.ItemColumns;
+
+/**
+ * Upper bounds on the optimal value of a 0/1 knapsack instance.
+ *
+ * Both bounds are computed from the items in decreasing efficiency order. Items heavier than
+ * the capacity can never be packed and are skipped. The break item {@code s} is the first item in
+ * that order that no longer fits once all more efficient items are packed; {@code P} and {@code c}
+ * are the value of the items before it and the capacity they leave. The neighbours of the break
+ * item used by {@link #martelloToth} skip items of zero weight: they free no capacity and, being
+ * ordered first unless their value is zero too, add nothing to the relaxation.
+ */
+public final class UpperBounds {
+
+    private UpperBounds() {}
+
+    /**
+     * Dantzig's bound, the optimum of the LP relaxation rounded down:
+     * {@code P + floor(c * p_s / w_s)}.
+     *
+     * @param items        the items of the instance
+     * @param capacity     the knapsack capacity
+     * @param byEfficiency the items in decreasing efficiency order, see {@link ItemOrder#byEfficiencyDescending}
+     * @return an upper bound on the optimal value
+     */
+    public static long dantzig(ItemColumns items, int capacity, int[] byEfficiency) {
+        Split split = split(items, capacity, byEfficiency);
+        if (split.breakItem < 0) return split.value;
+        return split.value + split.residual * items.value(split.breakItem) / items.weight(split.breakItem);
+    }
+
+    /**
+     * The Martello–Toth bound {@code U2}, never weaker than {@link #dantzig}. It considers both
+     * outcomes for the break item: excluded, the residual capacity is filled with the next item
+     * at its efficiency; included, room for it is made by removing the previous item at its efficiency.
+     *
+     * @param items        the items of the instance
+     * @param capacity     the knapsack capacity
+     * @param byEfficiency the items in decreasing efficiency order, see {@link ItemOrder#byEfficiencyDescending}
+     * @return an upper bound on the optimal value
+     */
+    public static long martelloToth(ItemColumns items, int capacity, int[] byEfficiency) {
+        Split split = split(items, capacity, byEfficiency);
+        if (split.breakItem < 0) return split.value;
+
+        int s = split.breakItem;
+        long withoutBreak = split.value;
+        if (split.next >= 0) {
+            withoutBreak += split.residual * items.value(split.next) / items.weight(split.next);
+        }
+
+        long withBreak = Long.MIN_VALUE;
+        if (split.previous >= 0) {
+            long missing = items.weight(s) - split.residual;
+            long numerator = missing * items.value(split.previous);
+            long removed = (numerator + items.weight(split.previous) - 1) / items.weight(split.previous);
+            withBreak = split.value + items.value(s) - removed;
+        }
+        return Math.max(withoutBreak, withBreak);
+    }
+
+    private record Split(long value, long residual, int breakItem, int previous, int next) {}
+
+    private static Split split(ItemColumns items, int capacity, int[] byEfficiency) {
+        long value = 0;
+        long residual = capacity;
+        int previous = -1;
+        for (int k = 0; k < byEfficiency.length; k++) {
+            int id = byEfficiency[k];
+            int weight = items.weight(id);
+            if (weight > capacity) continue;
+            if (weight > residual) {
+                int next = -1;
+                for (int m = k + 1; m < byEfficiency.length && next < 0; m++) {
+                    int w = items.weight(byEfficiency[m]);
+                    if (w > 0 && w <= capacity) next = byEfficiency[m];
+                }
+                return new Split(value, residual, id, previous, next);
+            }
+            value += items.value(id);
+            residual -= weight;
+            if (weight > 0) previous = id;
+        }
+        return new Split(value, residual, -1, previous, -1);
+    }
+}
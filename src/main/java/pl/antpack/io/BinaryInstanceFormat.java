@@ -0,0 +1,187 @@
+package pl.antpack.io;
+
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A compact binary file format for problem instances that loads without any parsing.
+ *
+ * All numbers are little-endian 32-bit integers. The file starts with a 24-byte header:
+ * <pre>
+ *  0  magic     "ANPK"
+ *  4  version   1
+ *  8  capacity
+ * 12  count     number of items
+ * 16  checksum  CRC32C of bytes 8-15 and of both columns
+ * 20  reserved  0
+ * </pre>
+ * followed by the weight column and the value column, {@code count} integers each. Columns are
+ * memory-mapped and copied into the item arrays with a bulk {@link java.nio.IntBuffer#get}; on
+ * little-endian hardware that is a plain memory copy.
+ */
+public final class BinaryInstanceFormat {
+
+    /** The first four bytes of every file, "ANPK" read as a little-endian integer. */
+    public static final int MAGIC = 0x4B504E41;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 24;
+
+    private static final int MAX_WINDOW = 1 << 30;
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    private BinaryInstanceFormat() {}
+
+    /**
+     * @return {@code true} if the file starts with the {@link #MAGIC} of this format
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return isBinary(channel);
+        }
+    }
+
+    static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (magic.hasRemaining() && channel.read(magic, magic.position()) > 0) {
+            // keep reading until four bytes arrive or the file ends
+        }
+        return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Reads an instance and verifies its checksum.
+     *
+     * @param path the file to read
+     * @return the instance stored in the file
+     * @throws InstanceFormatException if the header is invalid, the file is truncated or the checksum does not match
+     * @throws IOException             if the file cannot be read
+     */
+    public static ProblemInstance read(Path path) throws IOException {
+        return read(path, true);
+    }
+
+    /**
+     * Reads an instance.
+     *
+     * @param path   the file to read
+     * @param verify whether to compute the checksum of the columns; skipping it saves one pass over the data
+     * @return the instance stored in the file
+     * @throws InstanceFormatException if the header is invalid, the file is truncated or the checksum does not match
+     * @throws IOException             if the file cannot be read
+     */
+    public static ProblemInstance read(Path path, boolean verify) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(path, channel, verify);
+        }
+    }
+
+    static ProblemInstance read(Path path, FileChannel channel, boolean verify) throws IOException {
+        InstanceLoadEvent event = new InstanceLoadEvent();
+        event.begin();
+        ProblemInstance instance = load(path, channel, verify);
+        event.finish(path, "binary", channel.size(), instance, false);
+        return instance;
+    }
+
+    private static ProblemInstance load(Path path, FileChannel channel, boolean verify) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) throw new InstanceFormatException(path, size, "niekompletny nagłówek");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the whole header arrives
+        }
+        if (header.getInt(0) != MAGIC) throw new InstanceFormatException(path, 0, "nieznany format pliku");
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new InstanceFormatException(path, 4, "nieobsługiwana wersja formatu " + version);
+        }
+        int capacity = header.getInt(8);
+        int count = header.getInt(12);
+        if (count < 0 || count > Integer.MAX_VALUE - 8) {
+            throw new InstanceFormatException(path, 12, "niepoprawna liczba przedmiotów " + count);
+        }
+        long expected = HEADER_BYTES + 8L * count;
+        if (size != expected) {
+            throw new InstanceFormatException(path, Math.min(size, expected),
+                    "rozmiar pliku " + size + " B, oczekiwano " + expected + " B");
+        }
+
+        CRC32C crc = verify ? new CRC32C() : null;
+        if (crc != null) crc.update(header.array(), 8, 8);
+        int[] weights = new int[count];
+        int[] values = new int[count];
+        readColumn(channel, HEADER_BYTES, weights, crc);
+        readColumn(channel, HEADER_BYTES + 4L * count, values, crc);
+        if (crc != null && (int) crc.getValue() != header.getInt(16)) {
+            throw new InstanceFormatException(path, 16, "niezgodna suma kontrolna");
+        }
+        return new ProblemInstance(new ItemColumns(weights, values), capacity);
+    }
+
+    private static void readColumn(FileChannel channel, long position, int[] target, CRC32C crc) throws IOException {
+        int done = 0;
+        while (done < target.length) {
+            int length = Math.min(target.length - done, MAX_WINDOW / 4);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * done, 4L * length);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(target, done, length);
+            if (crc != null) crc.update(window);
+            done += length;
+        }
+    }
+
+    /**
+     * Writes an instance, replacing the file if it exists.
+     *
+     * @param path     the file to write
+     * @param instance the instance to store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, ProblemInstance instance) throws IOException {
+        ItemColumns items = instance.items();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(instance.capacity()).putInt(items.size());
+
+        CRC32C crc = new CRC32C();
+        crc.update(header.array(), 8, 8);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_BYTES;
+            position = writeColumn(channel, position, items.weights(), buffer, crc);
+            writeColumn(channel, position, items.values(), buffer, crc);
+
+            header.putInt((int) crc.getValue()).putInt(0).flip();
+            writeFully(channel, 0, header);
+        }
+    }
+
+    private static long writeColumn(FileChannel channel, long position, int[] column, ByteBuffer buffer,
+                                    CRC32C crc) throws IOException {
+        int perBuffer = buffer.capacity() / 4;
+        for (int done = 0; done < column.length; ) {
+            int length = Math.min(column.length - done, perBuffer);
+            buffer.clear();
+            buffer.asIntBuffer().put(column, done, length);
+            buffer.limit(4 * length);
+            crc.update(buffer.duplicate());
+            position = writeFully(channel, position, buffer);
+            done += length;
+        }
+        return position;
+    }
+
+    private static long writeFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        return position;
+    }
+}
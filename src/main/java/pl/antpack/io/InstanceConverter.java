@@ -0,0 +1,50 @@
+package pl.antpack.io;
+
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.utils.BenchmarkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command-line tool that writes instances in the {@link BinaryInstanceFormat}.
+ *
+ * Usage: {@code InstanceConverter INPUT OUTPUT} converts a text instance (or re-checks a binary one),
+ * {@code InstanceConverter --generate N FACTOR OUTPUT} stores the instance produced by
+ * {@link BenchmarkGenerator#generateHardProblem(int, int)}.
+ */
+public class InstanceConverter {
+
+    public static void main(String[] args) {
+        try {
+            ProblemInstance instance;
+            Path output;
+            if (args.length == 4 && args[0].equals("--generate")) {
+                instance = BenchmarkGenerator.generateHardProblem(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                output = Path.of(args[3]);
+            } else if (args.length == 2) {
+                instance = InstanceLoader.read(Path.of(args[0]));
+                output = Path.of(args[1]);
+            } else {
+                printUsage();
+                System.exit(2);
+                return;
+            }
+
+            BinaryInstanceFormat.write(output, instance);
+            System.out.printf("%s\tpojemność=%d\tprzedmioty=%d%n", output, instance.capacity(), instance.items().size());
+        } catch (NumberFormatException e) {
+            System.err.println("Niepoprawne argumenty: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("ALARM: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Użycie: InstanceConverter WEJŚCIE.txt WYJŚCIE.bin");
+        System.err.println("        InstanceConverter --generate N PROCENT_POJEMNOŚCI WYJŚCIE.bin");
+    }
+}
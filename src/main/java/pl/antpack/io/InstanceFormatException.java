@@ -0,0 +1,55 @@
+package pl.antpack.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Thrown when an instance file is readable but its content does not follow the expected format.
+ * Carries the position of the offending data so it can be shown to the user.
+ */
+public class InstanceFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final long offset;
+
+    /**
+     * @param file   the file being read
+     * @param line   the 1-based line number of the malformed data
+     * @param offset the 0-based byte offset of the malformed data within the file
+     * @param reason what is wrong with the data
+     */
+    public InstanceFormatException(Path file, long line, long offset, String reason) {
+        super(String.format("%s, linia %d (bajt %d): %s", file, line, offset, reason));
+        this.line = line;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates an exception for data that is not organized in lines, such as a binary file.
+     *
+     * @param file   the file being read
+     * @param offset the 0-based byte offset of the malformed data within the file
+     * @param reason what is wrong with the data
+     */
+    public InstanceFormatException(Path file, long offset, String reason) {
+        super(String.format("%s, bajt %d: %s", file, offset, reason));
+        this.line = 0;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the 1-based line number of the malformed data, or 0 if it is not tied to a line
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * @return the 0-based byte offset of the malformed data within the file
+     */
+    public long offset() {
+        return offset;
+    }
+}
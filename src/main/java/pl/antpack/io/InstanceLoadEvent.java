@@ -0,0 +1,54 @@
+package pl.antpack.io;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import pl.antpack.model.ProblemInstance;
+
+import java.nio.file.Path;
+
+/**
+ * JFR event spanning the loading of an instance file, in either format.
+ */
+@Name("pl.antpack.InstanceLoad")
+@Label("Instance Load")
+@Category({"AntPack", "I/O"})
+@Description("An instance file was read")
+final class InstanceLoadEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Format")
+    @Description("text or binary")
+    String format;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Items")
+    int items;
+
+    @Label("Capacity")
+    int capacity;
+
+    @Label("Parallel")
+    boolean parallel;
+
+    /**
+     * Ends the event and commits it with the details of the loaded instance, if it is recorded.
+     */
+    void finish(Path file, String fileFormat, long size, ProblemInstance instance, boolean parsedInParallel) {
+        if (!shouldCommit()) return;
+        path = file.toString();
+        format = fileFormat;
+        bytes = size;
+        items = instance.items().size();
+        capacity = instance.capacity();
+        parallel = parsedInParallel;
+        commit();
+    }
+}
@@ -0,0 +1,326 @@
+package pl.antpack.io;
+
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reads problem instances from text files without going through {@code String}s.
+ *
+ * The file is memory-mapped and the numbers are parsed straight from the mapped bytes into the
+ * weight and value columns. The part after the capacity line is split into chunks that end on line
+ * boundaries; each chunk is mapped on its own, so files larger than 2 GB are supported. Chunks are
+ * processed in two passes, optionally in parallel: the first counts the lines of every chunk, which
+ * gives each chunk its first line number and its range in the preallocated columns, the second
+ * parses the items into that range. Malformed numbers are reported with an
+ * {@link InstanceFormatException} giving their line and byte offset. Every load is reported as a
+ * {@code pl.antpack.InstanceLoad} Flight Recorder event.
+ */
+public final class InstanceLoader {
+
+    /** Files at least this large are parsed in parallel by {@link #readText(Path)}. */
+    public static final long PARALLEL_MIN_BYTES = 1L << 22;
+
+    private static final long MIN_CHUNK = 1L << 20;
+    private static final long MAX_CHUNK = 1L << 28;
+    private static final int SCAN_BUFFER = 1 << 16;
+    private static final int MAX_SNIPPET = 32;
+
+    private InstanceLoader() {}
+
+    /**
+     * Reads a problem instance in either supported format. Files that start with the magic of
+     * the {@link BinaryInstanceFormat} are read as binary, all others as text.
+     *
+     * @param path the file to read
+     * @return the problem instance stored in the file
+     * @throws InstanceFormatException if the content of the file is malformed
+     * @throws IOException             if the file cannot be read or is empty
+     */
+    public static ProblemInstance read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (BinaryInstanceFormat.isBinary(channel)) return BinaryInstanceFormat.read(path, channel, true);
+            return readText(path, channel, channel.size() >= PARALLEL_MIN_BYTES);
+        }
+    }
+
+    /**
+     * Reads a problem instance from a text file, in parallel if the file is large.
+     *
+     * The expected file format is:
+     * - The first line contains the capacity of the knapsack.
+     * - Subsequent lines contain pairs of weight and value, separated by whitespace.
+     * Empty lines and lines with fewer than two numbers are skipped, numbers after the
+     * first two on a line are ignored.
+     *
+     * @param path the file to read
+     * @return the parsed problem instance
+     * @throws InstanceFormatException if the file contains a malformed number
+     * @throws IOException             if the file cannot be read or is empty
+     */
+    public static ProblemInstance readText(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readText(path, channel, channel.size() >= PARALLEL_MIN_BYTES);
+        }
+    }
+
+    /**
+     * Reads a problem instance from a text file, see {@link #readText(Path)}.
+     *
+     * @param path     the file to read
+     * @param parallel whether the chunks of the file are parsed in parallel
+     * @return the parsed problem instance
+     * @throws InstanceFormatException if the file contains a malformed number
+     * @throws IOException             if the file cannot be read or is empty
+     */
+    public static ProblemInstance readText(Path path, boolean parallel) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readText(path, channel, parallel);
+        }
+    }
+
+    private static ProblemInstance readText(Path path, FileChannel channel, boolean parallel) throws IOException {
+        InstanceLoadEvent event = new InstanceLoadEvent();
+        event.begin();
+        ProblemInstance instance = parseText(path, channel, parallel);
+        event.finish(path, "text", channel.size(), instance, parallel);
+        return instance;
+    }
+
+    private static ProblemInstance parseText(Path path, FileChannel channel, boolean parallel) throws IOException {
+        long size = channel.size();
+        if (size == 0) throw new IOException("Plik jest pusty: " + path);
+
+        long start = startsWithBom(channel) ? 3 : 0;
+        long bodyStart = nextLineStart(channel, start);
+        Chunk header = map(path, channel, start, bodyStart);
+        header.firstLine = 1;
+        int capacity = header.parseCapacity();
+
+        Chunk[] chunks = split(path, channel, bodyStart, parallel);
+        forEach(chunks, parallel, Chunk::countLines);
+
+        long slots = 0;
+        long line = 2;
+        for (Chunk chunk : chunks) {
+            chunk.firstLine = line;
+            chunk.firstSlot = (int) Math.min(slots, Integer.MAX_VALUE);
+            line += chunk.lines;
+            slots += chunk.lines;
+        }
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IOException("Plik zawiera zbyt wiele linii: " + path);
+        }
+
+        int[] weights = new int[(int) slots];
+        int[] values = new int[(int) slots];
+        forEach(chunks, parallel, chunk -> chunk.parseItems(weights, values));
+
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.error != null) throw chunk.error;
+            if (chunk.firstSlot != count) {
+                System.arraycopy(weights, chunk.firstSlot, weights, count, chunk.count);
+                System.arraycopy(values, chunk.firstSlot, values, count, chunk.count);
+            }
+            count += chunk.count;
+        }
+        if (count == slots) return new ProblemInstance(new ItemColumns(weights, values), capacity);
+        return new ProblemInstance(
+                new ItemColumns(Arrays.copyOf(weights, count), Arrays.copyOf(values, count)), capacity);
+    }
+
+    private static void forEach(Chunk[] chunks, boolean parallel, Consumer<Chunk> action) {
+        IntStream indices = IntStream.range(0, chunks.length);
+        if (parallel) indices = indices.parallel();
+        indices.forEach(i -> action.accept(chunks[i]));
+    }
+
+    /**
+     * Splits {@code [from, size)} into mapped chunks that end right after a line feed (or at the
+     * end of the file). Parallel reads get a few chunks per worker thread.
+     */
+    private static Chunk[] split(Path path, FileChannel channel, long from, boolean parallel) throws IOException {
+        long size = channel.size();
+        int target = parallel ? ForkJoinPool.getCommonPoolParallelism() * 4 : 1;
+        long chunkSize = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, (size - from + target - 1) / target));
+
+        List<Chunk> chunks = new ArrayList<>();
+        long start = from;
+        while (start < size) {
+            long end = size - start <= chunkSize ? size : nextLineStart(channel, start + chunkSize);
+            chunks.add(map(path, channel, start, end));
+            start = end;
+        }
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    private static Chunk map(Path path, FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new InstanceFormatException(path, 0, start, "linia jest zbyt długa");
+        }
+        return new Chunk(path, channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start);
+    }
+
+    /**
+     * @return the position right after the first line feed at or after {@code from}, or the size
+     *         of the file if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+    }
+
+    private static boolean startsWithBom(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // keep reading until three bytes arrive or the file ends
+        }
+        return buffer.position() == 3
+                && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF;
+    }
+
+    /**
+     * A mapped range of the file made of whole lines. Positions inside a chunk are {@code int}
+     * indices into its buffer; {@link #offset} turns them into file positions for error reports.
+     */
+    private static final class Chunk {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final long offset;
+        private final int limit;
+
+        private long lines;
+        private long firstLine;
+        private int firstSlot;
+        private int count;
+        private InstanceFormatException error;
+
+        Chunk(Path path, MappedByteBuffer buffer, long offset) {
+            this.path = path;
+            this.buffer = buffer;
+            this.offset = offset;
+            this.limit = buffer.limit();
+        }
+
+        void countLines() {
+            long n = 0;
+            for (int i = 0; i < limit; i++) {
+                if (buffer.get(i) == '\n') n++;
+            }
+            if (limit > 0 && buffer.get(limit - 1) != '\n') n++;
+            lines = n;
+        }
+
+        int parseCapacity() throws InstanceFormatException {
+            int first = skipBlanks(0);
+            if (first == limit || buffer.get(first) == '\n') {
+                throw new InstanceFormatException(path, firstLine, offset + first, "brak pojemności plecaka");
+            }
+            int firstEnd = tokenEnd(first);
+            int capacity = parseInt(first, firstEnd, firstLine);
+            int rest = skipBlanks(firstEnd);
+            if (rest < limit && buffer.get(rest) != '\n') {
+                throw malformed(rest, tokenEnd(rest), firstLine, "oczekiwano tylko pojemności plecaka");
+            }
+            return capacity;
+        }
+
+        /**
+         * Parses the items of the chunk into the columns starting at {@link #firstSlot}. Stops at
+         * the first malformed number and records it in {@link #error}.
+         */
+        void parseItems(int[] weights, int[] values) {
+            int slot = firstSlot;
+            long line = firstLine;
+            int pos = 0;
+            try {
+                while (pos < limit) {
+                    int first = skipBlanks(pos);
+                    int firstEnd = tokenEnd(first);
+                    int second = skipBlanks(firstEnd);
+                    if (second < limit && buffer.get(second) != '\n') {
+                        int secondEnd = tokenEnd(second);
+                        weights[slot] = parseInt(first, firstEnd, line);
+                        values[slot] = parseInt(second, secondEnd, line);
+                        slot++;
+                        pos = secondEnd;
+                    } else {
+                        pos = second;
+                    }
+                    while (pos < limit && buffer.get(pos) != '\n') pos++;
+                    pos++;
+                    line++;
+                }
+            } catch (InstanceFormatException e) {
+                error = e;
+            }
+            count = slot - firstSlot;
+        }
+
+        private int parseInt(int from, int to, long line) throws InstanceFormatException {
+            int pos = from;
+            byte sign = buffer.get(pos);
+            boolean negative = sign == '-';
+            if (negative || sign == '+') pos++;
+            if (pos == to) throw malformed(from, to, line, "niepoprawna liczba");
+
+            long max = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+            long result = 0;
+            for (; pos < to; pos++) {
+                int digit = buffer.get(pos) - '0';
+                if (digit < 0 || digit > 9) throw malformed(from, to, line, "niepoprawna liczba");
+                result = result * 10 + digit;
+                if (result > max) throw malformed(from, to, line, "liczba poza zakresem int");
+            }
+            return (int) (negative ? -result : result);
+        }
+
+        private InstanceFormatException malformed(int from, int to, long line, String reason) {
+            byte[] snippet = new byte[Math.min(to - from, MAX_SNIPPET)];
+            buffer.get(from, snippet);
+            String text = new String(snippet, StandardCharsets.UTF_8) + (to - from > MAX_SNIPPET ? "..." : "");
+            return new InstanceFormatException(path, line, offset + from, reason + " \"" + text + "\"");
+        }
+
+        private int skipBlanks(int pos) {
+            while (pos < limit && isBlank(buffer.get(pos))) pos++;
+            return pos;
+        }
+
+        private int tokenEnd(int pos) {
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == '\n' || isBlank(b)) break;
+                pos++;
+            }
+            return pos;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+        }
+    }
+}
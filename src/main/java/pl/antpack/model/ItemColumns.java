@@ -0,0 +1,86 @@
+package pl.antpack.model;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Structure-of-arrays view of a set of items. Weights and values are kept in two
+ * parallel primitive arrays indexed by item id, which lets the hot loops of the
+ * optimizer work without dereferencing {@code Item} objects or boxing indices.
+ */
+public class ItemColumns {
+    private final int[] weights;
+    private final int[] values;
+
+    public ItemColumns(int[] weights, int[] values) {
+        if (weights.length != values.length) {
+            throw new IllegalArgumentException("Weights and values must have the same length");
+        }
+        this.weights = weights;
+        this.values = values;
+    }
+
+    /**
+     * Copies the weights and values of the given items into primitive columns.
+     * The position of an item in the list becomes its index in the columns, which
+     * matches the id convention used by the rest of the application.
+     *
+     * @param items the items to convert
+     * @return the columnar representation of the items
+     */
+    public static ItemColumns from(List<Item> items) {
+        int n = items.size();
+        int[] weights = new int[n];
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            Item item = items.get(i);
+            weights[i] = item.getWeight();
+            values[i] = item.getValue();
+        }
+        return new ItemColumns(weights, values);
+    }
+
+    public int size() { return weights.length; }
+    public int weight(int index) { return weights[index]; }
+    public int value(int index) { return values[index]; }
+
+    /**
+     * Returns the backing weight column. The array is shared, callers must not modify it.
+     */
+    public int[] weights() { return weights; }
+
+    /**
+     * Returns the backing value column. The array is shared, callers must not modify it.
+     */
+    public int[] values() { return values; }
+
+    /**
+     * Materializes the item stored at the given index.
+     *
+     * @param index the index (and id) of the item
+     * @return a new {@code Item} with the weight and value stored at {@code index}
+     */
+    public Item item(int index) {
+        return new Item(index, weights[index], values[index]);
+    }
+
+    /**
+     * Returns a read-only list view of the items. {@code Item} objects are created on access,
+     * so the view costs nothing until it is used (for example by the UI tables and charts).
+     *
+     * @return a list of the items, indexed by item id
+     */
+    public List<Item> asItems() {
+        return new AbstractList<>() {
+            @Override
+            public Item get(int index) {
+                return item(index);
+            }
+
+            @Override
+            public int size() {
+                return weights.length;
+            }
+        };
+    }
+}
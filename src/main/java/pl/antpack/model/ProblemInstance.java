@@ -0,0 +1,9 @@
+package pl.antpack.model;
+
+/**
+ * A knapsack problem instance: the items to choose from and the capacity of the knapsack.
+ *
+ * @param items    the items in columnar form, item ids are their indices
+ * @param capacity the maximum total weight of the selected items
+ */
+public record ProblemInstance(ItemColumns items, int capacity) {}
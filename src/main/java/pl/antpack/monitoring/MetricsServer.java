@@ -0,0 +1,286 @@
+package pl.antpack.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import pl.antpack.core.ACOEngine;
+import pl.antpack.core.ACOEngine.SimulationMetrics;
+import pl.antpack.core.EngineListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP endpoint that exposes the live state of running engines in the Prometheus text
+ * format, built on the JDK's {@code com.sun.net.httpserver}.
+ *
+ * Every registered {@link ACOEngine} gets an {@link EngineListener} that captures its state after
+ * each iteration on the engine thread, so a scrape never touches the engine itself. Engines are
+ * told apart by the {@code colony} label (the engine's {@link ACOEngine#getColonyId() id}) and a
+ * free-form {@code name} label given at registration. The JVM heap, an estimate of the allocation
+ * rate and the garbage collector counters are reported alongside. Metrics are served at {@code /metrics}.
+ */
+public final class MetricsServer implements AutoCloseable {
+
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<ACOEngine, EngineMonitor> monitors = new ConcurrentHashMap<>();
+    private final AllocationRate allocationRate = new AllocationRate();
+
+    /**
+     * Starts the endpoint.
+     *
+     * @param address the address to listen on; port 0 picks a free port, see {@link #getPort()}
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsServer(InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "antpack-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Starts exporting the state of an engine. Must be called before the engine runs or between iterations.
+     *
+     * @param engine the engine to watch
+     * @param name   the value of the {@code name} label, for example the instance file
+     */
+    public void register(ACOEngine engine, String name) {
+        EngineMonitor monitor = new EngineMonitor(engine, name);
+        if (monitors.putIfAbsent(engine, monitor) == null) engine.addListener(monitor);
+    }
+
+    /**
+     * Stops exporting the state of an engine.
+     */
+    public void unregister(ACOEngine engine) {
+        EngineMonitor monitor = monitors.remove(engine);
+        if (monitor != null) engine.removeListener(monitor);
+    }
+
+    @Override
+    public void close() {
+        for (ACOEngine engine : monitors.keySet()) unregister(engine);
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * @return the current metrics in the Prometheus text exposition format
+     */
+    public String scrape() {
+        Exposition out = new Exposition();
+        EngineMonitor.Sample[] samples = monitors.values().stream()
+                .map(EngineMonitor::sample)
+                .toArray(EngineMonitor.Sample[]::new);
+
+        out.family("antpack_iterations_total", "counter", "Iterations completed by the colony.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_iterations_total", s.labels, s.iterations);
+        out.family("antpack_ants_total", "counter", "Solutions constructed by the ants of the colony.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_ants_total", s.labels, s.ants);
+        out.family("antpack_iterations_per_second", "gauge", "Iteration rate over the last second.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_iterations_per_second", s.labels, s.iterationsPerSecond);
+        out.family("antpack_ants_per_second", "gauge", "Ant construction rate over the last second.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_ants_per_second", s.labels, s.antsPerSecond);
+        out.family("antpack_iteration_best_value", "gauge", "Best value found in the last iteration.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_iteration_best_value", s.labels, s.iterationBest);
+        out.family("antpack_global_best_value", "gauge", "Best value found by the colony so far.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_global_best_value", s.labels, s.globalBest);
+        out.family("antpack_upper_bound_value", "gauge", "Upper bound on the optimal value of the instance.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_upper_bound_value", s.labels, s.upperBound);
+        out.family("antpack_gap_ratio", "gauge", "Relative gap between the upper bound and the global best value.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_gap_ratio", s.labels, s.gap);
+        out.family("antpack_diversity_ratio", "gauge",
+                "Mean pairwise Hamming distance of the solutions of the last iteration over twice their mean size.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_diversity_ratio", s.labels, s.diversity);
+        out.family("antpack_branching_factor", "gauge",
+                "Items within the top 95% of the pheromone range over the mean solution size.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_branching_factor", s.labels, s.branchingFactor);
+        out.family("antpack_stagnation_iterations", "gauge",
+                "Iterations since the last improvement or pheromone smoothing or restart.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_stagnation_iterations", s.labels, s.stagnation);
+        out.family("antpack_pheromone_smoothings_total", "counter", "Pheromone smoothings triggered by convergence.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_pheromone_smoothings_total", s.labels, s.smoothings);
+        out.family("antpack_pheromone_resets_total", "counter", "Pheromone restarts triggered by convergence.");
+        for (EngineMonitor.Sample s : samples) out.value("antpack_pheromone_resets_total", s.labels, s.resets);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        out.family("jvm_memory_heap_used_bytes", "gauge", "Used heap memory.");
+        out.value("jvm_memory_heap_used_bytes", "", heap.getUsed());
+        out.family("jvm_memory_heap_committed_bytes", "gauge", "Committed heap memory.");
+        out.value("jvm_memory_heap_committed_bytes", "", heap.getCommitted());
+        out.family("jvm_memory_heap_max_bytes", "gauge", "Maximum heap memory, -1 if undefined.");
+        out.value("jvm_memory_heap_max_bytes", "", heap.getMax());
+        out.family("jvm_allocation_rate_bytes_per_second", "gauge",
+                "Heap allocation rate of the live threads since the previous scrape.");
+        out.value("jvm_allocation_rate_bytes_per_second", "", allocationRate.update());
+
+        out.family("jvm_gc_collections_total", "counter", "Garbage collections performed.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            out.value("jvm_gc_collections_total", Exposition.label("gc", gc.getName()), gc.getCollectionCount());
+        }
+        out.family("jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collections.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            out.value("jvm_gc_collection_seconds_total", Exposition.label("gc", gc.getName()),
+                    gc.getCollectionTime() / 1000.0);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Captures the state of one engine after every iteration, on the engine thread, and publishes
+     * it as an immutable sample for the scrape thread.
+     */
+    private static final class EngineMonitor implements EngineListener {
+
+        private record Sample(String labels, long iterations, long ants, double iterationsPerSecond,
+                              double antsPerSecond, int iterationBest, int globalBest, long upperBound,
+                              double gap, double diversity, double branchingFactor, int stagnation,
+                              int smoothings, int resets, long capturedAt) {
+
+            /**
+             * @return this sample with the rates dropped to 0 if no iteration finished for twice
+             *         the expected interval, so a paused engine does not report its last rate forever
+             */
+            Sample at(long now) {
+                double idleSeconds = (now - capturedAt) / 1e9;
+                if (iterationsPerSecond == 0 || idleSeconds <= Math.max(2.0, 2.0 / iterationsPerSecond)) return this;
+                return new Sample(labels, iterations, ants, 0, 0, iterationBest, globalBest, upperBound, gap,
+                        diversity, branchingFactor, stagnation, smoothings, resets, capturedAt);
+            }
+        }
+
+        private final ACOEngine engine;
+        private final String labels;
+        private volatile Sample sample;
+        private long windowStart = System.nanoTime();
+        private long windowIterations;
+        private double iterationsPerSecond;
+
+        EngineMonitor(ACOEngine engine, String name) {
+            this.engine = engine;
+            this.labels = Exposition.label("colony", String.valueOf(engine.getColonyId())) + ","
+                    + Exposition.label("name", name);
+            this.sample = new Sample(labels, engine.getIteration(), (long) engine.getIteration() * engine.getAntCount(),
+                    0, 0, 0, engine.getGlobalBest() != null ? engine.getGlobalBest().getValue() : 0,
+                    engine.getUpperBound(), 1.0, Double.NaN, Double.NaN, engine.getStagnationCounter(),
+                    engine.getPheromoneSmoothings(), engine.getPheromoneResets(), windowStart);
+        }
+
+        @Override
+        public void onIteration(SimulationMetrics metrics) {
+            long now = System.nanoTime();
+            windowIterations++;
+            if (now - windowStart >= RATE_WINDOW_NANOS) {
+                iterationsPerSecond = windowIterations * 1e9 / (now - windowStart);
+                windowStart = now;
+                windowIterations = 0;
+            }
+            int ants = engine.getAntCount();
+            sample = new Sample(labels, metrics.iteration(), (long) metrics.iteration() * ants,
+                    iterationsPerSecond, iterationsPerSecond * ants, metrics.bestInIterationVal(),
+                    metrics.globalBestVal(), metrics.upperBound(), metrics.gap(), metrics.diversity(),
+                    metrics.branchingFactor(), engine.getStagnationCounter(), engine.getPheromoneSmoothings(),
+                    engine.getPheromoneResets(), now);
+        }
+
+        Sample sample() {
+            return sample.at(System.nanoTime());
+        }
+    }
+
+    /**
+     * Estimates the allocation rate from the bytes allocated by the live threads. Threads that
+     * ended between two scrapes take their allocations with them, so the rate is a lower bound.
+     */
+    private static final class AllocationRate {
+        private long lastBytes = -1;
+        private long lastTime;
+
+        synchronized double update() {
+            if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                    || !threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+                return 0;
+            }
+            long bytes = 0;
+            for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                if (allocated > 0) bytes += allocated;
+            }
+            long now = System.nanoTime();
+            double rate = lastBytes < 0 || now == lastTime ? 0 : Math.max(0, bytes - lastBytes) * 1e9 / (now - lastTime);
+            lastBytes = bytes;
+            lastTime = now;
+            return rate;
+        }
+    }
+
+    /**
+     * Builds a text exposition: {@code # HELP} and {@code # TYPE} lines followed by the samples.
+     */
+    private static final class Exposition {
+        private final StringBuilder text = new StringBuilder();
+
+        void family(String name, String type, String help) {
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+
+        void value(String name, String labels, double value) {
+            text.append(name);
+            if (!labels.isEmpty()) text.append('{').append(labels).append('}');
+            text.append(' ');
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                text.append((long) value);
+            } else {
+                text.append(String.format(Locale.ROOT, "%.6g", value));
+            }
+            text.append('\n');
+        }
+
+        static String label(String name, String value) {
+            String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            return name + "=\"" + escaped + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package pl.antpack.ui;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import pl.antpack.core.ACOEngine;
+import pl.antpack.core.EngineListener;
+import pl.antpack.core.MetricsPublisher;
+import pl.antpack.core.MetricsPublisher.Snapshot;
+import pl.antpack.core.StopReason;
+
+import java.util.function.Consumer;
+
+/**
+ * Adapts the headless {@link ACOEngine} to the JavaFX user interface.
+ *
+ * The runner drives the engine from a daemon background thread, pausing briefly between
+ * iterations so the charts stay readable. Iteration metrics are not pushed to the JavaFX
+ * application thread: a {@link MetricsPublisher} keeps the latest snapshot, at most one every
+ * {@link #PUBLISH_INTERVAL_MS} milliseconds, and an {@link AnimationTimer} pulls it once per frame.
+ * Log messages are forwarded with {@code Platform.runLater}. The runner ends on its own when one
+ * of the engine's stop criteria is met, for example once the best solution is provably optimal.
+ */
+public class FxEngineRunner {
+
+    private static final long PAUSE_BETWEEN_ITERATIONS_MS = 20;
+    private static final long PUBLISH_INTERVAL_MS = 50;
+
+    private final ACOEngine engine;
+    private final MetricsPublisher publisher;
+    private final AnimationTimer pullTimer;
+    private final Consumer<Snapshot> onMetrics;
+    private final Consumer<String> onLog;
+    private final Runnable onFinished;
+    private volatile boolean isRunning = false;
+    private Thread workerThread;
+
+    /**
+     * Creates a runner for the given engine and subscribes the UI callbacks to it.
+     * Must be called on the FX thread.
+     *
+     * @param engine     the engine to drive
+     * @param onMetrics  called on the FX thread with the latest snapshot, at most once per frame;
+     *                   the pheromone array of the snapshot is valid until the next call
+     * @param onLog      called on the FX thread for every engine log message
+     * @param onFinished called on the FX thread when the runner ends because a stop criterion was met
+     */
+    public FxEngineRunner(ACOEngine engine, Consumer<Snapshot> onMetrics, Consumer<String> onLog,
+                          Runnable onFinished) {
+        this.engine = engine;
+        this.onMetrics = onMetrics;
+        this.onLog = onLog;
+        this.onFinished = onFinished;
+        this.publisher = new MetricsPublisher(engine, PUBLISH_INTERVAL_MS, true);
+        this.pullTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pull();
+            }
+        };
+        engine.addListener(publisher);
+        engine.addListener(new EngineListener() {
+            @Override
+            public void onLog(String message) {
+                Platform.runLater(() -> onLog.accept(message));
+            }
+        });
+    }
+
+    private void pull() {
+        Snapshot snapshot = publisher.poll();
+        if (snapshot != null) onMetrics.accept(snapshot);
+    }
+
+    /**
+     * Starts stepping the engine on a background thread. Does nothing if it is already running.
+     * A thread still finishing a previous run is waited for first, so two threads never step the
+     * engine at the same time.
+     */
+    public void start() {
+        if (isRunning || !awaitWorker()) return;
+        isRunning = true;
+        onLog.accept("SYSTEM: Uruchamianie silnika ACO. Wątki równoległe aktywne.");
+        pullTimer.start();
+
+        workerThread = new Thread(() -> {
+            while (isRunning) {
+                StopReason reason = engine.evaluateStopCriteria();
+                if (reason != null) {
+                    isRunning = false;
+                    publisher.flush();
+                    Platform.runLater(() -> {
+                        pullTimer.stop();
+                        pull();
+                        onLog.accept("SYSTEM: Symulacja zakończona (" + reason + ").");
+                        onFinished.run();
+                    });
+                    return;
+                }
+                engine.step();
+                try {
+                    Thread.sleep(PAUSE_BETWEEN_ITERATIONS_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }, "aco-fx-runner");
+        workerThread.setDaemon(true);
+        workerThread.start();
+    }
+
+    /**
+     * Stops the background thread and waits for the iteration in progress to finish,
+     * so the engine can be safely reset afterwards. The last iteration is still shown.
+     */
+    public void stop() {
+        isRunning = false;
+        engine.stop();
+        boolean idle = awaitWorker();
+        pullTimer.stop();
+        if (idle) publisher.flush();
+        pull();
+    }
+
+    /**
+     * Waits for the background thread to end. The thread only finishes the iteration in progress
+     * once {@link #isRunning} is cleared, so this does not wait for more than one iteration. The
+     * reference is kept if the wait is interrupted, so a later call waits again.
+     *
+     * @return {@code true} if no background thread is running any more
+     */
+    private boolean awaitWorker() {
+        if (workerThread == null || workerThread == Thread.currentThread()) return true;
+        try {
+            workerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        workerThread = null;
+        return true;
+    }
+
+    /**
+     * Stops the runner and releases the engine's worker threads.
+     */
+    public void dispose() {
+        stop();
+        engine.close();
+    }
+
+    public ACOEngine getEngine() {
+        return engine;
+    }
+}
@@ -12,20 +12,24 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import pl.antpack.core.ACOEngine;
 import pl.antpack.core.ACOEngine.SimulationMetrics;
+import pl.antpack.core.MetricsPublisher.Snapshot;
+import pl.antpack.core.SolverConfig;
 import pl.antpack.model.Item;
+import pl.antpack.model.ProblemInstance;
+import pl.antpack.io.InstanceFormatException;
+import pl.antpack.io.InstanceLoader;
 import pl.antpack.utils.BenchmarkGenerator;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The SimulationController class manages the user interface and the underlying ACOEngine
  * used for solving knapsack problems. This class is responsible for initializing the UI,
  * handling file input, configuring sliders and charts, and managing the communication
- * and state updates between the UI and the simulation engine.
+ * and state updates between the UI and the simulation engine. The engine itself is headless;
+ * it is driven through an {@link FxEngineRunner}.
  */
 public class SimulationController {
 
@@ -54,6 +58,7 @@ public class SimulationController {
     @FXML private ListView<String> logListView;
 
     private ACOEngine engine;
+    private FxEngineRunner runner;
     private XYChart.Series<Number, Number> avgSeries;
     private XYChart.Series<Number, Number> bestSeries;
     private double[] currentPheromones;
@@ -87,9 +92,11 @@ public class SimulationController {
      * - Subsequent lines contain pairs of weight and value, separated by spaces.
      *
      * If the file is successfully loaded, its contents are parsed and used.
-     * If an error occurs during parsing, an alert is displayed with instructions for the correct format.
+     * If an error occurs during parsing, an alert is displayed with the position of the malformed
+     * data, or with instructions for the correct format if the file could not be read at all.
      *
-     * The supported file type is text files with the extension ".txt".
+     * The supported file types are text files with the extension ".txt" and binary instances
+     * with the extension ".bin".
      *
      * This method is marked with the `@FXML` annotation, indicating its association with JavaFX.
      */
@@ -97,7 +104,9 @@ public class SimulationController {
     private void handleLoadFile() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Wybierz plik z danymi plecaka");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Pliki tekstowe", "*.txt"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Pliki tekstowe", "*.txt"),
+                new FileChooser.ExtensionFilter("Instancje binarne", "*.bin"));
 
         File file = fileChooser.showOpenDialog(startButton.getScene().getWindow());
 
@@ -108,7 +117,9 @@ public class SimulationController {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Błąd formatu");
                 alert.setHeaderText("Nie udało się wczytać pliku");
-                alert.setContentText("Upewnij się, że format to:\nCAPACITY\nWAGA WARTOŚĆ\nWAGA WARTOŚĆ...");
+                alert.setContentText(e instanceof InstanceFormatException
+                        ? e.getMessage()
+                        : "Upewnij się, że format to:\nCAPACITY\nWAGA WARTOŚĆ\nWAGA WARTOŚĆ...");
                 alert.showAndWait();
             }
         }
@@ -121,9 +132,7 @@ public class SimulationController {
      * and subsequent lines represent items with their weight and value.
      *
      * This method performs the following operations:
-     * - Reads the file content line by line.
-     * - Extracts the knapsack capacity from the first line.
-     * - Parses subsequent lines to create {@code Item} objects based on weight and value.
+     * - Reads the instance with {@link InstanceLoader#read}.
      * - Stops the current simulation engine if it is running.
      * - Loads the parsed items and capacity into the engine for processing.
      * - Logs the details of the loaded file, including the knapsack capacity and
@@ -131,31 +140,15 @@ public class SimulationController {
      *
      * @param file the file containing knapsack capacity and item data.
      *             The file must not be null and should be formatted correctly.
+     * @throws InstanceFormatException if the file contains a malformed number.
      * @throws IOException if an I/O error occurs while reading the file.
      */
     private void parseAndLoadFile(File file) throws IOException {
-        List<String> lines = Files.readAllLines(file.toPath());
-        if (lines.isEmpty()) return;
-
-        int capacity = Integer.parseInt(lines.get(0).trim());
-        List<Item> newItems = new ArrayList<>();
-
-        int idCounter = 0;
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i).trim();
-            if (line.isEmpty()) continue;
-
-            String[] parts = line.split("\\s+");
-            if (parts.length >= 2) {
-                int weight = Integer.parseInt(parts[0]);
-                int value = Integer.parseInt(parts[1]);
-                newItems.add(new Item(idCounter++, weight, value));
-            }
-        }
+        ProblemInstance problem = InstanceLoader.read(file.toPath());
 
-        if (engine != null) engine.stop();
-        loadEngineWithData(newItems, capacity);
-        log("Wczytano plik: " + file.getName() + " (Pojemność: " + capacity + ", Przedmioty: " + newItems.size() + ")");
+        if (runner != null) runner.stop();
+        loadEngineWithData(problem);
+        log("Wczytano plik: " + file.getName() + " (Pojemność: " + problem.capacity() + ", Przedmioty: " + problem.items().size() + ")");
     }
 
     /**
@@ -166,28 +159,28 @@ public class SimulationController {
      * 1. Logs a message indicating the generation of test data for the knapsack problem.
      * 2. Calls the {@code BenchmarkGenerator.generateHardProblem} method to generate
      *    a problem instance with 150 items and a capacity factor of 30%.
-     * 3. Loads the engine with the generated problem data, including the list of items
+     * 3. Loads the engine with the generated problem data, including the items
      *    and the calculated knapsack capacity, by invoking the {@code loadEngineWithData} method.
      *
      * The generated data is used to configure the engine and facilitate the simulation process.
      */
     private void loadBenchmarkData() {
         log("Generowanie danych testowych (Hard Knapsack)...");
-        BenchmarkGenerator.ProblemInstance problem = BenchmarkGenerator.generateHardProblem(150, 30);
-        loadEngineWithData(problem.items(), problem.capacity());
+        ProblemInstance problem = BenchmarkGenerator.generateHardProblem(150, 30);
+        loadEngineWithData(problem);
     }
 
     /**
      * Initializes and loads the engine with the provided data, sets up necessary callbacks,
      * and updates the associated UI elements to reflect the new engine state.
      *
-     * @param items    the list of items to be processed by the engine
-     * @param capacity the capacity value to configure the engine with
+     * @param problem the items to be processed by the engine and the capacity to configure it with
      */
-    private void loadEngineWithData(List<Item> items, int capacity) {
-        if (engine != null) engine.stop();
-        engine = new ACOEngine(items, capacity);
-        engine.setCallbacks(this::onSimulationUpdate, this::log);
+    private void loadEngineWithData(ProblemInstance problem) {
+        if (runner != null) runner.dispose();
+        List<Item> items = problem.items().asItems();
+        engine = new ACOEngine(problem, SolverConfig.defaults());
+        runner = new FxEngineRunner(engine, this::onSimulationUpdate, this::log, this::onRunFinished);
         itemsTable.setItems(FXCollections.observableArrayList(items));
         currentPheromones = new double[items.size()];
         avgSeries.getData().clear();
@@ -310,7 +303,7 @@ public class SimulationController {
      * - Disables the start button, reset button, and file load button
      *   to prevent conflicting actions during engine execution.
      * - Enables the stop button to allow manual interruption of the process.
-     * - Initiates the engine process by calling the start method on it.
+     * - Initiates the engine process by starting the {@code FxEngineRunner}.
      */
     @FXML
     private void handleStart() {
@@ -327,13 +320,13 @@ public class SimulationController {
         resetButton.setDisable(true);
         loadFileButton.setDisable(true);
 
-        engine.start();
+        runner.start();
     }
 
     /**
      * Handles the stop action for the simulation.
      *
-     * This method stops the currently running simulation engine, if it is not null,
+     * This method stops the runner driving the simulation engine, if it is not null,
      * and updates the user interface to reflect the stopped state. It enables the
      * start, reset, and load file buttons while disabling the stop button.
      * The method is designed to maintain consistent behavior and ensure proper
@@ -341,7 +334,15 @@ public class SimulationController {
      */
     @FXML
     private void handleStop() {
-        if (engine != null) engine.stop();
+        if (runner != null) runner.stop();
+        onRunFinished();
+    }
+
+    /**
+     * Restores the idle state of the buttons, either after a manual stop or when the runner
+     * ended on its own because a stop criterion of the engine was met.
+     */
+    private void onRunFinished() {
         startButton.setDisable(false);
         stopButton.setDisable(true);
         resetButton.setDisable(false);
@@ -388,15 +389,19 @@ public class SimulationController {
      * Handles the periodic update of simulation metrics during the Ant Colony Optimization (ACO) process.
      * Updates various UI components with the latest data from the simulation, including iteration number,
      * global best value, knapsack fill percentage, and charts for average and best values. Additionally,
-     * refreshes the items table at specific intervals and updates the pheromone snapshot.
+     * updates the pheromone snapshot and refreshes the items table. Snapshots arrive at most once per
+     * frame, so the charts show a sample of the iterations on fast runs.
      *
-     * @param metrics The {@code SimulationMetrics} object containing the statistics of the current
-     *                iteration, such as iteration number, global best value, average solution value,
-     *                pheromone levels, and solution weights.
+     * @param snapshot the latest snapshot pulled by the {@link FxEngineRunner}: the statistics of the
+     *                 iteration, such as iteration number, global best value, average solution value and
+     *                 solution weights, and the pheromone levels at its end.
      */
-    private void onSimulationUpdate(SimulationMetrics metrics) {
-        currentIterationLabel.setText(String.valueOf(metrics.iteration()));
-        globalBestLabel.setText(String.valueOf(metrics.globalBestVal()));
+    private void onSimulationUpdate(Snapshot snapshot) {
+        SimulationMetrics metrics = snapshot.metrics();
+        currentIterationLabel.setText(Double.isNaN(metrics.diversity())
+                ? String.valueOf(metrics.iteration())
+                : String.format("%d (różnorodność %.0f%%)", metrics.iteration(), metrics.diversity() * 100.0));
+        globalBestLabel.setText(String.format("%d (luka %.2f%%)", metrics.globalBestVal(), metrics.gap() * 100.0));
 
         double fillPercent = (metrics.bestWeight() / engine.getCapacity()) * 100.0;
         knapsackFillLabel.setText(String.format("%.1f%% (%.0f/%d)", fillPercent, metrics.bestWeight(), engine.getCapacity()));
@@ -409,10 +414,8 @@ public class SimulationController {
             bestSeries.getData().remove(0);
         }
 
-        this.currentPheromones = metrics.pheromonesSnapshot();
-        if (metrics.iteration() % 5 == 0) {
-            itemsTable.refresh();
-        }
+        this.currentPheromones = snapshot.pheromones();
+        itemsTable.refresh();
     }
 
     /**
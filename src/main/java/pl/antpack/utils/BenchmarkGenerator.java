@@ -1,26 +1,27 @@
 package pl.antpack.utils;
 
-import pl.antpack.model.Item;
-import java.util.ArrayList;
-import java.util.List;
+import pl.antpack.model.ItemColumns;
+import pl.antpack.model.ProblemInstance;
+
 import java.util.Random;
 
 public class BenchmarkGenerator {
 
     /**
      * Generates a "hard knapsack" problem instance based on the specified parameters.
-     * The method creates a list of items with randomized weights and values,
+     * The method creates item columns with randomized weights and values,
      * calculates the total weight of the items, and derives the knapsack capacity
      * using the specified capacity factor.
      *
      * @param itemCount the number of items to include in the problem instance
      * @param capacityFactor the factor (as a percentage) used to determine the knapsack capacity
      *                       relative to the total weight of all items
-     * @return a {@code ProblemInstance} containing the generated list of items and
+     * @return a {@code ProblemInstance} containing the generated items and
      *         the calculated knapsack capacity
      */
     public static ProblemInstance generateHardProblem(int itemCount, int capacityFactor) {
-        List<Item> items = new ArrayList<>();
+        int[] weights = new int[itemCount];
+        int[] values = new int[itemCount];
         Random random = new Random(12345);
 
         int totalWeight = 0;
@@ -29,13 +30,12 @@ public class BenchmarkGenerator {
             int weight = 10 + random.nextInt(90);
             int value = weight + 10;
 
-            items.add(new Item(i, weight, value));
+            weights[i] = weight;
+            values[i] = value;
             totalWeight += weight;
         }
         int capacity = (int) (totalWeight * (capacityFactor / 100.0));
 
-        return new ProblemInstance(items, capacity);
+        return new ProblemInstance(new ItemColumns(weights, values), capacity);
     }
-
-    public record ProblemInstance(List<Item> items, int capacity) {}
 }
\ No newline at end of file